@@ -7,37 +7,91 @@ package de.uos.inf.ko.knapsack;
  */
 public class FractionalSolution extends GenericSolution<Double> {
   private double epsilon = 1e-6;
+  private final double[] quantities;
+  private double value;
+  private double weight;
 
   public FractionalSolution(Instance instance) {
-    super(instance);
+    super(instance, false);
+    quantities = new double[instance.getSize()];
   }
 
   /**
    * Copy a solution (copy constructor)
    */
   public FractionalSolution(FractionalSolution solution) {
-    super(solution);
+    super(solution.getInstance(), false);
+    quantities = solution.quantities.clone();
+    value = solution.value;
+    weight = solution.weight;
   }
 
   @Override
   public void set(int item, Double quantity) {
-    assert sol.size() > item : "Item number " + item + " not found!";
-    assert sol.get(item) != null : "Item " + item + " not initialized in solution.";
+    setDouble(item, quantity);
+  }
+
+  /**
+   * Assign a quantity to an item without boxing.
+   *
+   * @param item index of the item
+   * @param quantity quantity to be assigned
+   */
+  public void setDouble(int item, double quantity) {
+    assert quantities.length > item : "Item number " + item + " not found!";
     // TODO: insert correct solution of excerise sheet 1 here
-    solValue += (quantity - sol.get(item)) * instance.getValue(item); // !REMOVE
-    solWeight += (quantity - sol.get(item)) * instance.getWeight(item); // !REMOVE
-    sol.set(item, quantity); // !REMOVE
+    value += (quantity - quantities[item]) * instance.getValue(item); // !REMOVE
+    weight += (quantity - quantities[item]) * instance.getWeight(item); // !REMOVE
+    quantities[item] = quantity; // !REMOVE
+  }
+
+  @Override
+  public Double get(int item) {
+    return quantities[item];
+  }
+
+  /**
+   * Get the quantity of an item without boxing.
+   *
+   * @param item index of the item
+   */
+  public double getDouble(int item) {
+    return quantities[item];
+  }
+
+  @Override
+  public Double getValue() {
+    return value;
+  }
+
+  /**
+   * Get the solution value without boxing.
+   */
+  public double getDoubleValue() {
+    return value;
+  }
+
+  @Override
+  public Double getWeight() {
+    return weight;
+  }
+
+  /**
+   * Get the solution weight without boxing.
+   */
+  public double getDoubleWeight() {
+    return weight;
   }
 
   @Override
   public boolean isFeasible() {
     // TODO: insert correct solution of excerise sheet 1 here
-    return getWeight() <= instance.getCapacity() + epsilon; // !REMOVE
+    return weight <= instance.getCapacity() + epsilon; // !REMOVE
   }
 
   @Override
   public boolean isBinary() {
-    for (double quantity : sol) {
+    for (double quantity : quantities) {
       if (quantity > epsilon && quantity < 1 - epsilon) {
         return false;
       }
@@ -5,6 +5,11 @@ import java.util.ArrayList;
 /**
  * Solution of a generic knapsack problem
  *
+ * By default the quantities, value and weight are kept boxed in {@link #sol}, {@link #solValue}
+ * and {@link #solWeight}. Subclasses that store them in primitive arrays instead (like
+ * {@link Solution} and {@link FractionalSolution}) use {@link #GenericSolution(Instance, boolean)}
+ * and override {@link #get(int)}, {@link #getValue()} and {@link #getWeight()}.
+ *
  * @author Stephan Beyer
  */
 public abstract class GenericSolution<QuantityType extends Number> {
@@ -14,12 +19,23 @@ public abstract class GenericSolution<QuantityType extends Number> {
   protected QuantityType solWeight;
 
   public GenericSolution(Instance instance) {
+    this(instance, true);
+  }
+
+  /**
+   * @param instance the instance
+   * @param boxed keep the quantities, value and weight in sol, solValue and solWeight (all zero);
+   *        subclasses with their own storage pass false, the fields are then null
+   */
+  protected GenericSolution(Instance instance, boolean boxed) {
     this.instance = instance;
-    solValue = zero();
-    solWeight = zero();
-    sol = new ArrayList<QuantityType>();
-    for (int i = 0; i < instance.getSize(); ++i) {
-      sol.add(zero());
+    if (boxed) {
+      solValue = zero();
+      solWeight = zero();
+      sol = new ArrayList<QuantityType>(instance.getSize());
+      for (int i = 0; i < instance.getSize(); ++i) {
+        sol.add(zero());
+      }
     }
   }
 
@@ -61,9 +77,9 @@ public abstract class GenericSolution<QuantityType extends Number> {
    * Get the array (integer) of all quantities
    */
   public int[] getIntegerArray() {
-    int[] array = new int[sol.size()];
-    for (int i = 0; i < sol.size(); ++i) {
-      array[i] = (Integer) sol.get(i);
+    int[] array = new int[instance.getSize()];
+    for (int i = 0; i < array.length; ++i) {
+      array[i] = (Integer) get(i);
     }
     return array;
   }
@@ -99,10 +115,13 @@ public abstract class GenericSolution<QuantityType extends Number> {
 
   @Override
   public String toString() {
-    String str = "";
-    for (QuantityType quantity : sol) {
-      str += quantity + " ";
+    StringBuilder str = new StringBuilder();
+    for (int i = 0; i < instance.getSize(); ++i) {
+      if (i > 0) {
+        str.append(' ');
+      }
+      str.append(get(i));
     }
-    return str.trim();
+    return str.toString();
   }
 }
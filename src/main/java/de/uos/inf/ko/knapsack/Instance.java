@@ -1,5 +1,7 @@
 package de.uos.inf.ko.knapsack;
 
+import java.util.stream.IntStream;
+
 /**
  * A knapsack problem instance containing values and weights for each item, and a weight limit of
  * the knapsack.
@@ -27,6 +29,11 @@ public class Instance {
    */
   private String filename;
 
+  /**
+   * Item indices sorted by decreasing efficiency (computed on demand)
+   */
+  private volatile int[] order;
+
   /**
    * Constructs an instance for given item number
    *
@@ -68,7 +75,8 @@ public class Instance {
   }
 
   /**
-   * Get array containing all values
+   * Get array containing all values (changes to the array are not
+   * noticed by the instance, use {@link #setValue(int, int)})
    */
   public int[] getValueArray() {
     return c;
@@ -82,6 +90,7 @@ public class Instance {
    */
   public void setValue(int item, int value) {
     c[item] = value;
+    order = null;
   }
 
   /**
@@ -94,7 +103,8 @@ public class Instance {
   }
 
   /**
-   * Get array containing all weights
+   * Get array containing all weights (changes to the array are not
+   * noticed by the instance, use {@link #setWeight(int, int)})
    */
   public int[] getWeightArray() {
     return w;
@@ -108,6 +118,7 @@ public class Instance {
    */
   public void setWeight(int item, int weight) {
     w[item] = weight;
+    order = null;
   }
 
   /**
@@ -132,4 +143,35 @@ public class Instance {
   public int getSize() {
     return c.length;
   }
+
+  /**
+   * Get the item indices sorted by decreasing efficiency (value/weight);
+   * weightless items come first. The order is computed once and cached
+   * until a value or weight is changed; the capacity does not affect it.
+   * The returned array must not be modified.
+   */
+  public int[] getEfficiencyOrder() {
+    int[] result = order;
+    if (result == null) {
+      result = sortByEfficiency(c, w);
+      order = result;
+    }
+    return result;
+  }
+
+  /**
+   * Item indices sorted by decreasing efficiency; weightless items come first.
+   *
+   * @param c Values
+   * @param w Weights
+   */
+  private static int[] sortByEfficiency(int[] c, int[] w) {
+    return IntStream.range(0, c.length)
+        .boxed()
+        .sorted((a, b) -> w[a] == 0 || w[b] == 0
+            ? w[a] != w[b] ? Integer.compare(w[a], w[b]) : Integer.compare(c[b], c[a])
+            : Long.compare((long) c[b] * w[a], (long) c[a] * w[b]))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
 }
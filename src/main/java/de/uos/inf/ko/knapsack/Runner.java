@@ -2,6 +2,7 @@ package de.uos.inf.ko.knapsack;
 
 import java.io.IOException;
 import de.uos.inf.ko.knapsack.reader.Reader;
+import de.uos.inf.ko.knapsack.solver.student.ExpandingCore;
 import de.uos.inf.ko.utils.Logger;
 
 public class Runner {
@@ -45,7 +46,7 @@ public class Runner {
         System.out.println("# Capacity of knapsack: " + instance.getCapacity());
         System.out.println("###############################################");
         System.out.println();
-        // TODO: runSolver(new YourSolverHere(instance));
+        runSolver(new ExpandingCore(), instance);
         break;
       default:
         throw new IllegalArgumentException(usage);
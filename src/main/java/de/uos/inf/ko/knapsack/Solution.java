@@ -6,15 +6,37 @@ package de.uos.inf.ko.knapsack;
  * @author Stephan Beyer
  */
 public class Solution extends GenericSolution<Integer> {
+  private final int[] quantities;
+  private int value;
+  private int weight;
+
   public Solution(Instance instance) {
-    super(instance);
+    super(instance, false);
+    quantities = new int[instance.getSize()];
   }
 
   /**
    * Copy a solution (copy constructor)
    */
   public Solution(Solution solution) {
-    super(solution);
+    super(solution.getInstance(), false);
+    quantities = solution.quantities.clone();
+    value = solution.value;
+    weight = solution.weight;
+  }
+
+  /**
+   * Create a solution from an array of quantities.
+   *
+   * @param instance the instance
+   * @param quantities quantity of each item (copied)
+   */
+  public Solution(Instance instance, int[] quantities) {
+    this(instance);
+    assert quantities.length == this.quantities.length : "Quantity array does not fit the instance!";
+    for (int i = 0; i < quantities.length; ++i) {
+      setInt(i, quantities[i]);
+    }
   }
 
   /**
@@ -25,11 +47,73 @@ public class Solution extends GenericSolution<Integer> {
    */
   @Override
   public void set(int item, Integer quantity) {
-    assert sol.size() > item : "Item number " + item + " not found!";
-    assert sol.get(item) != null : "Item " + item + " not initialized in solution.";
-    solValue += (quantity - sol.get(item)) * instance.getValue(item);
-    solWeight += (quantity - sol.get(item)) * instance.getWeight(item);
-    sol.set(item, quantity);
+    setInt(item, quantity);
+  }
+
+  /**
+   * Assign a quantity to an item without boxing.
+   *
+   * @param item index of the item
+   * @param quantity quantity to be assigned
+   */
+  public void setInt(int item, int quantity) {
+    assert quantities.length > item : "Item number " + item + " not found!";
+    int delta = quantity - quantities[item];
+    value += delta * instance.getValue(item);
+    weight += delta * instance.getWeight(item);
+    quantities[item] = quantity;
+  }
+
+  /**
+   * Flip the quantity of an item between zero and one.
+   *
+   * @param item index of the item
+   */
+  public void flip(int item) {
+    setInt(item, 1 - quantities[item]);
+  }
+
+  @Override
+  public Integer get(int item) {
+    return quantities[item];
+  }
+
+  /**
+   * Get the quantity of an item without boxing.
+   *
+   * @param item index of the item
+   */
+  public int getInt(int item) {
+    return quantities[item];
+  }
+
+  @Override
+  public int[] getIntegerArray() {
+    return quantities.clone();
+  }
+
+  @Override
+  public Integer getValue() {
+    return value;
+  }
+
+  /**
+   * Get the solution value without boxing.
+   */
+  public int getIntValue() {
+    return value;
+  }
+
+  @Override
+  public Integer getWeight() {
+    return weight;
+  }
+
+  /**
+   * Get the solution weight without boxing.
+   */
+  public int getIntWeight() {
+    return weight;
   }
 
   /**
@@ -37,7 +121,7 @@ public class Solution extends GenericSolution<Integer> {
    */
   @Override
   public boolean isFeasible() {
-    return getWeight() <= instance.getCapacity();
+    return weight <= instance.getCapacity();
   }
 
   /**
@@ -45,7 +129,7 @@ public class Solution extends GenericSolution<Integer> {
    */
   @Override
   public boolean isBinary() {
-    for (int quantity : sol) {
+    for (int quantity : quantities) {
       if (quantity != 0 && quantity != 1) {
         return false;
       }
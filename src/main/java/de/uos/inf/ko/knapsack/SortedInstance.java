@@ -0,0 +1,184 @@
+package de.uos.inf.ko.knapsack;
+
+/**
+ * A view on a knapsack instance with the items sorted by decreasing efficiency (value/weight).
+ * Weightless items come first. Prefix sums of values and weights allow to answer the LP
+ * relaxation (Dantzig bound) of the items j,...,n-1 for any residual capacity in O(log n).
+ *
+ * Positions in the sorted order are called levels; {@link #getItem(int)} maps a level back to
+ * the item index of the instance. The sorted order is cached by the instance, so repeated views
+ * on the same instance sort only once. The view does not follow later changes of the instance.
+ *
+ * @author jtormoehlen
+ */
+public class SortedInstance {
+  private final Instance instance;
+
+  /**
+   * Item index for each level
+   */
+  private final int[] order;
+
+  /**
+   * Values and weights in sorted order
+   */
+  private final int[] c;
+  private final int[] w;
+
+  /**
+   * Sums of the values and weights of the levels 0,...,j-1
+   */
+  private final long[] prefixValue;
+  private final long[] prefixWeight;
+
+  public SortedInstance(Instance instance) {
+    this.instance = instance;
+    int n = instance.getSize();
+    order = instance.getEfficiencyOrder();
+    c = new int[n];
+    w = new int[n];
+    prefixValue = new long[n + 1];
+    prefixWeight = new long[n + 1];
+    for (int j = 0; j < n; j++) {
+      c[j] = instance.getValue(order[j]);
+      w[j] = instance.getWeight(order[j]);
+      prefixValue[j + 1] = prefixValue[j] + c[j];
+      prefixWeight[j + 1] = prefixWeight[j] + w[j];
+    }
+  }
+
+  /**
+   * Get the underlying instance.
+   */
+  public Instance getInstance() {
+    return instance;
+  }
+
+  /**
+   * Get number of items.
+   */
+  public int getSize() {
+    return order.length;
+  }
+
+  /**
+   * Get weight limit (capacity of knapsack).
+   */
+  public int getCapacity() {
+    return instance.getCapacity();
+  }
+
+  /**
+   * Get the item index of a level.
+   *
+   * @param level Position in the sorted order
+   */
+  public int getItem(int level) {
+    return order[level];
+  }
+
+  /**
+   * Get the item indices in sorted order (must not be modified).
+   */
+  public int[] getOrder() {
+    return order;
+  }
+
+  /**
+   * Get value of the item at a level.
+   *
+   * @param level Position in the sorted order
+   */
+  public int getValue(int level) {
+    return c[level];
+  }
+
+  /**
+   * Get weight of the item at a level.
+   *
+   * @param level Position in the sorted order
+   */
+  public int getWeight(int level) {
+    return w[level];
+  }
+
+  /**
+   * Get the sum of the values of the levels 0,...,level-1.
+   *
+   * @param level Position in the sorted order (0,...,n)
+   */
+  public long getPrefixValue(int level) {
+    return prefixValue[level];
+  }
+
+  /**
+   * Get the sum of the weights of the levels 0,...,level-1.
+   *
+   * @param level Position in the sorted order (0,...,n)
+   */
+  public long getPrefixWeight(int level) {
+    return prefixWeight[level];
+  }
+
+  /**
+   * Get the critical level: the first level s >= level such that the items
+   * level,...,s do not fit into the residual capacity, or n if all of them fit.
+   *
+   * @param level First level to be packed
+   * @param residual Residual capacity
+   */
+  public int getCriticalLevel(int level, long residual) {
+    long limit = prefixWeight[level] + residual;
+    int lo = level;
+    int hi = order.length;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      if (prefixWeight[mid] <= limit) {
+        lo = mid;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Get the break level of the instance, i.e. the critical level for the
+   * full capacity.
+   */
+  public int getBreakLevel() {
+    return getCriticalLevel(0, instance.getCapacity());
+  }
+
+  /**
+   * Get the Dantzig bound (value of the LP relaxation, rounded down) of the
+   * items at the levels level,...,n-1 for a residual capacity.
+   *
+   * @param level First level to be packed
+   * @param residual Residual capacity
+   */
+  public long getUpperBound(int level, long residual) {
+    int s = getCriticalLevel(level, residual);
+    long bound = prefixValue[s] - prefixValue[level];
+    if (s < order.length) {
+      bound += (prefixWeight[level] + residual - prefixWeight[s]) * c[s] / w[s];
+    }
+    return bound;
+  }
+
+  /**
+   * Get the value of the LP relaxation of the items at the levels
+   * level,...,n-1 for a residual capacity.
+   *
+   * @param level First level to be packed
+   * @param residual Residual capacity
+   */
+  public double getFractionalBound(int level, long residual) {
+    int s = getCriticalLevel(level, residual);
+    double bound = prefixValue[s] - prefixValue[level];
+    if (s < order.length) {
+      bound += (prefixWeight[level] + residual - prefixWeight[s]) * (double) c[s] / w[s];
+    }
+    return bound;
+  }
+}
@@ -3,21 +3,47 @@ package de.uos.inf.ko.knapsack.solver.student;
 import de.uos.inf.ko.knapsack.Instance;
 import de.uos.inf.ko.knapsack.Solution;
 import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.knapsack.SortedInstance;
+import de.uos.inf.ko.utils.Logger;
 
 import java.util.*;
 
 /**
  * A branch-and-bound algorithm for the binary knapsack problem.
  *
+ * The search tree is either explored best-first with a priority queue of nodes or depth-first
+ * (Horowitz-Sahni) with a single mutable solution vector, which needs O(n) memory only.
+ *
  * @author jtormoehlen
  */
 public class BranchAndBound implements SolverInterface<Solution> {
 
+  /**
+   * Order in which the search tree is explored
+   */
+  public enum Strategy {
+    BEST_FIRST, DEPTH_FIRST
+  }
+
+  private final Strategy strategy;
+
   List<Item> items;
+  SortedInstance sorted;
   int capacity;
 
+  public BranchAndBound() {
+    this(Strategy.BEST_FIRST);
+  }
+
+  public BranchAndBound(Strategy strategy) {
+    this.strategy = strategy;
+  }
+
   @Override
   public Solution solve(Instance instance) {
+    if (strategy == Strategy.DEPTH_FIRST) {
+      return solveDepthFirst(instance);
+    }
 
     Solution solution = new Solution(instance);
 
@@ -25,14 +51,13 @@ public class BranchAndBound implements SolverInterface<Solution> {
     capacity = instance.getCapacity();
     int n = instance.getSize();
 
-    /** initialize list of items from instance **/
-    for (int i = 0; i < n; i++) {
+    /** initialize list of items from instance, sorted by ratio **/
+    sorted = new SortedInstance(instance);
+    for (int j = 0; j < n; j++) {
+      int i = sorted.getItem(j);
       items.add(new Item(i, instance.getWeight(i), instance.getValue(i)));
     }
 
-    /** sort items by ratio **/
-    Collections.sort(items);
-
     /** initialize root and best node and compute upperBound of root node **/
     Node best = new Node();
     Node root = new Node();
@@ -92,9 +117,40 @@ public class BranchAndBound implements SolverInterface<Solution> {
     return solution;
   }
 
+  /**
+   * depth-first branch-and-bound (Horowitz-Sahni), see {@link DepthFirstSearch}
+   *
+   * @param instance knapsack instance
+   * @return optimal solution
+   */
+  private Solution solveDepthFirst(Instance instance) {
+    DepthFirstSearch search = new DepthFirstSearch(instance);
+    boolean[] best = new boolean[search.n];
+    long[] bestValue = {-1};
+
+    long start = System.nanoTime();
+    long nodes = search.explore(0, new boolean[search.n], 0, 0, new DepthFirstSearch.Incumbent() {
+      @Override
+      public long value() {
+        return bestValue[0];
+      }
+
+      @Override
+      public void offer(long value, boolean[] x) {
+        bestValue[0] = value;
+        System.arraycopy(x, 0, best, 0, x.length);
+      }
+    });
+
+    double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+    Logger.println("BB-DFS: " + nodes + " nodes, " + (long) (nodes / seconds) + " nodes/s");
+
+    return new Solution(instance, search.toArray(best));
+  }
+
   @Override
   public String getName() {
-    return "BB(s)";
+    return strategy == Strategy.DEPTH_FIRST ? "BB-DFS(s)" : "BB(s)";
   }
 
   /**
@@ -123,21 +179,10 @@ public class BranchAndBound implements SolverInterface<Solution> {
     }
 
     /**
-     * compute upper Bound
+     * compute upper Bound (LP relaxation of the items h,...,n-1)
      */
     public void computeBound() {
-      int i = h;
-      double w = weight;
-      bound = value;
-      Item item;
-      do {
-        item = items.get(i);
-        if (w + item.weight > capacity) break;
-        w += item.weight;
-        bound += item.value;
-        i++;
-      } while (i < items.size());
-      bound += (capacity - w) * (item.value / item.weight);
+      bound = value + sorted.getFractionalBound(h, capacity - (long) weight);
     }
   }
 
@@ -0,0 +1,64 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+/**
+ * A cooling schedule of simulated annealing: the temperature of the next batch of moves, given the
+ * position of a chain within its time budget. Schedules are stateless, so one schedule can be
+ * shared by all chains.
+ *
+ * @author jtormoehlen
+ */
+@FunctionalInterface
+public interface CoolingSchedule {
+
+    /**
+     * temperature of the next batch of moves
+     *
+     * @param hot        start temperature
+     * @param cold       final temperature
+     * @param t          current temperature
+     * @param progress   elapsed share of the budget in [0, 1]
+     * @param stagnation elapsed share of the budget since the chain last improved its best solution
+     * @return next temperature
+     */
+    double next(double hot, double cold, double t, double progress, double stagnation);
+
+    /**
+     * exponential cooling T = hot * (cold / hot)^progress,
+     * i.e. a constant factor per unit of time
+     */
+    static CoolingSchedule geometric() {
+        return (hot, cold, t, progress, stagnation) -> hot * Math.pow(cold / hot, progress);
+    }
+
+    /**
+     * linear cooling from hot to cold
+     */
+    static CoolingSchedule linear() {
+        return (hot, cold, t, progress, stagnation) -> hot + (cold - hot) * progress;
+    }
+
+    /**
+     * Lundy-Mees cooling T_k+1 = T_k / (1 + beta T_k) in closed form,
+     * with beta such that the temperature reaches cold at the deadline
+     */
+    static CoolingSchedule lundyMees() {
+        return (hot, cold, t, progress, stagnation) -> hot / (1 + progress * (hot / cold - 1));
+    }
+
+    /**
+     * follows a base schedule while the chain improves; whenever the
+     * chain stagnates for another share patience of the budget, the
+     * temperature is reset to the one of its last improvement and
+     * the base schedule is replayed from there
+     *
+     * @param base     base schedule
+     * @param patience share of the budget without improvement before reheating
+     */
+    static CoolingSchedule reheating(CoolingSchedule base, double patience) {
+        if (patience <= 0) {
+            throw new IllegalArgumentException("patience must be positive: " + patience);
+        }
+        return (hot, cold, t, progress, stagnation) -> base.next(hot, cold, t,
+                stagnation < patience ? progress : progress - stagnation + stagnation % patience, stagnation);
+    }
+}
@@ -0,0 +1,111 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.SortedInstance;
+
+/**
+ * Depth-first (Horowitz-Sahni) branch-and-bound over the items of an instance in order of
+ * decreasing efficiency. Each forward move takes the next item if it fits, a backtrack drops the
+ * most recently taken item; the Dantzig bound of a node is taken from the {@link SortedInstance}.
+ * Used by the sequential and the parallel branch-and-bound.
+ *
+ * @author jtormoehlen
+ */
+class DepthFirstSearch {
+
+    /**
+     * Best solution known to the search, possibly shared between threads
+     */
+    interface Incumbent {
+        /**
+         * @return value of the best known solution
+         */
+        long value();
+
+        /**
+         * offer a solution in efficiency order
+         *
+         * @param value value of the solution
+         * @param x     taken items (must be copied)
+         */
+        void offer(long value, boolean[] x);
+    }
+
+    final SortedInstance sorted;
+    final int n;
+    final long capacity;
+
+    DepthFirstSearch(Instance instance) {
+        sorted = new SortedInstance(instance);
+        n = sorted.getSize();
+        capacity = sorted.getCapacity();
+    }
+
+    /**
+     * explores the subtree below level from; items in front of from
+     * are fixed by x, value and weight
+     *
+     * @param from      first free item
+     * @param x         current solution (modified during the search, restored afterwards)
+     * @param value     value of the fixed items
+     * @param weight    weight of the fixed items
+     * @param incumbent best known solution
+     * @return number of visited nodes
+     */
+    long explore(int from, boolean[] x, long value, long weight, Incumbent incumbent) {
+        int[] taken = new int[n - from];
+        int top = 0;
+        long nodes = 0;
+        int j = from;
+
+        while (true) {
+            nodes++;
+            boolean backtrack;
+            if (j == n) {
+                /** leaf: update best solution if possible **/
+                if (value > incumbent.value()) {
+                    incumbent.offer(value, x);
+                }
+                backtrack = true;
+            } else {
+                backtrack = value + sorted.getUpperBound(j, capacity - weight) <= incumbent.value();
+            }
+
+            if (!backtrack) {
+                /** forward move: take item j if it fits **/
+                if (sorted.getWeight(j) <= capacity - weight) {
+                    x[j] = true;
+                    taken[top++] = j;
+                    weight += sorted.getWeight(j);
+                    value += sorted.getValue(j);
+                }
+                j++;
+            } else if (top > 0) {
+                /** backtrack: drop the last taken item and continue without it **/
+                int k = taken[--top];
+                x[k] = false;
+                weight -= sorted.getWeight(k);
+                value -= sorted.getValue(k);
+                j = k + 1;
+            } else {
+                return nodes;
+            }
+        }
+    }
+
+    /**
+     * maps a solution in efficiency order back to the item indices
+     *
+     * @param x taken items in efficiency order
+     * @return quantity of each item
+     */
+    int[] toArray(boolean[] x) {
+        int[] result = new int[n];
+        for (int j = 0; j < n; j++) {
+            if (x[j]) {
+                result[sorted.getItem(j)] = 1;
+            }
+        }
+        return result;
+    }
+}
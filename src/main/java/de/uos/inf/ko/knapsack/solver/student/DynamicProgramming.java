@@ -0,0 +1,342 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.Solution;
+import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.knapsack.SortedInstance;
+import de.uos.inf.ko.utils.Logger;
+
+/**
+ * A pseudo-polynomial dynamic programming solver for the binary knapsack problem.
+ *
+ * Before the dynamic program is run, all items whose Lagrangian (Dembo-Hammer) upper bound
+ * cannot beat the greedy solution are fixed; the remaining items are solved over a rolling
+ * one-dimensional table. Row i of the table is only evaluated for capacities that can still
+ * reach the full capacity with the items behind i, so a nearly full knapsack costs
+ * O(n * (sum of weights - W)) instead of O(n * W).
+ *
+ * Decisions are recorded in a bit-matrix as long as it fits into {@link #MAX_MATRIX_WORDS}
+ * words, otherwise the item range is split in halves and the capacity is divided between
+ * them (divide and conquer), so memory stays O(W + MAX_MATRIX_WORDS).
+ *
+ * @author jtormoehlen
+ */
+public class DynamicProgramming implements SolverInterface<Solution> {
+
+    /**
+     * maximal number of 64 bit words of a decision bit-matrix (32 MiB)
+     */
+    static final long MAX_MATRIX_WORDS = 1L << 22;
+
+    @Override
+    public Solution solve(Instance instance) {
+        int n = instance.getSize();
+        int capacity = instance.getCapacity();
+        int[] v = instance.getValueArray();
+        int[] w = instance.getWeightArray();
+        int[] x = new int[n];
+
+        /** sort items by efficiency and find the break item b **/
+        SortedInstance sorted = new SortedInstance(instance);
+        int[] order = sorted.getOrder();
+        int b = sorted.getBreakLevel();
+        long breakValue = sorted.getPrefixValue(b);
+        long breakWeight = sorted.getPrefixWeight(b);
+
+        /** everything fits **/
+        if (b == n) {
+            for (int i = 0; i < n; i++) {
+                x[i] = 1;
+            }
+            return new Solution(instance, x);
+        }
+
+        /** greedy lower bound: break solution filled up with items behind the break item **/
+        int[] greedy = new int[n];
+        long lowerBound = breakValue;
+        long residual = capacity - breakWeight;
+        for (int j = 0; j < n; j++) {
+            int i = order[j];
+            if (j < b) {
+                greedy[i] = 1;
+            } else if (w[i] <= residual) {
+                greedy[i] = 1;
+                residual -= w[i];
+                lowerBound += v[i];
+            }
+        }
+
+        /** fix items by the Dembo-Hammer bound with multiplier p_b / w_b **/
+        long pb = v[order[b]];
+        long wb = w[order[b]];
+        long slack = capacity - breakWeight;
+        int[] free = new int[n];
+        int freeCount = 0;
+        long fixedValue = 0;
+        long fixedWeight = 0;
+        for (int j = 0; j < n; j++) {
+            int i = order[j];
+            long bound;
+            if (j < b) {
+                bound = (breakValue - v[i] - lowerBound) * wb + (slack + w[i]) * pb;
+            } else {
+                bound = (breakValue + v[i] - lowerBound) * wb + (slack - w[i]) * pb;
+            }
+
+            if (bound >= wb) {
+                free[freeCount++] = i;
+            } else if (j < b) {
+                x[i] = 1;
+                fixedValue += v[i];
+                fixedWeight += w[i];
+            }
+        }
+
+        Logger.println("DP: " + freeCount + " of " + n + " items left after reduction");
+
+        /** solve the reduced problem **/
+        int[] fv = new int[freeCount];
+        int[] fw = new int[freeCount];
+        for (int k = 0; k < freeCount; k++) {
+            fv[k] = v[free[k]];
+            fw[k] = w[free[k]];
+        }
+        boolean[] take = new boolean[freeCount];
+        long value = fixedValue + solve(fv, fw, (int) (capacity - fixedWeight), take);
+
+        /** the greedy solution may still be the better one **/
+        if (value <= lowerBound) {
+            return new Solution(instance, greedy);
+        }
+
+        for (int k = 0; k < freeCount; k++) {
+            if (take[k]) {
+                x[free[k]] = 1;
+            }
+        }
+
+        return new Solution(instance, x);
+    }
+
+    @Override
+    public String getName() {
+        return "DP(s)";
+    }
+
+    /**
+     * solves a binary knapsack problem given by value and weight
+     * arrays by dynamic programming over the capacity
+     *
+     * @param v        values
+     * @param w        weights
+     * @param capacity capacity
+     * @param take     output: items of an optimal solution
+     * @return optimal value
+     */
+    static long solve(int[] v, int[] w, int capacity, boolean[] take) {
+        /** scale weights and capacity by the greatest common divisor of all weights **/
+        int g = 0;
+        for (int weight : w) {
+            g = gcd(g, weight);
+        }
+        if (g > 1) {
+            w = w.clone();
+            for (int i = 0; i < w.length; i++) {
+                w[i] /= g;
+            }
+            capacity /= g;
+        }
+
+        divideAndConquer(v, w, 0, v.length, capacity, take);
+
+        long value = 0;
+        for (int i = 0; i < take.length; i++) {
+            if (take[i]) {
+                value += v[i];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * computes an optimal item selection for items [from, to)
+     * and the given capacity; the range is split in halves
+     * until the decision bit-matrix fits into memory
+     */
+    private static void divideAndConquer(int[] v, int[] w, int from, int to, int capacity, boolean[] take) {
+        if (from >= to) {
+            return;
+        }
+
+        if (to - from == 1 || matrixWords(w, from, to, capacity) <= MAX_MATRIX_WORDS) {
+            bitMatrix(v, w, from, to, capacity, take);
+            return;
+        }
+
+        /** best split of the capacity between both halves **/
+        int mid = (from + to) >>> 1;
+        long leftWeight = sum(w, from, mid);
+        long rightWeight = sum(w, mid, to);
+        int lo = (int) Math.max(0, capacity - rightWeight);
+        int hi = (int) Math.min(capacity, leftWeight);
+        int[] left = forward(v, w, from, mid, capacity, lo);
+        int[] right = forward(v, w, mid, to, capacity, (int) Math.max(0, capacity - leftWeight));
+        int split = hi;
+        long best = -1;
+        for (int c = lo; c <= hi; c++) {
+            long value = (long) left[c] + right[capacity - c];
+            if (value > best) {
+                best = value;
+                split = c;
+            }
+        }
+
+        /** release the tables before descending **/
+        left = null;
+        right = null;
+
+        divideAndConquer(v, w, from, mid, split, take);
+        divideAndConquer(v, w, mid, to, capacity - split, take);
+    }
+
+    /**
+     * rolling table: f[c] = maximal value of items [from, to) with weight
+     * at most c; only entries c elem [lo, capacity] are valid, entries
+     * beyond the total weight of the items are not part of the table
+     */
+    private static int[] forward(int[] v, int[] w, int from, int to, int capacity, int lo) {
+        long total = sum(w, from, to);
+        int cap = (int) Math.min(capacity, total);
+        int[] f = new int[cap + 1];
+        long prefix = 0;
+        long suffix = total;
+        int previous = 0;
+
+        for (int i = from; i < to; i++) {
+            int wi = w[i];
+            int vi = v[i];
+            prefix += wi;
+            suffix -= wi;
+            int upper = (int) Math.min(cap, prefix);
+            int lower = (int) Math.max(wi, lo - suffix);
+            /** capacities beyond the previous prefix weight do not help the previous items **/
+            for (int c = previous + 1; c <= upper; c++) {
+                f[c] = f[previous];
+            }
+            previous = upper;
+            for (int c = upper; c >= lower; c--) {
+                int value = f[c - wi] + vi;
+                if (value > f[c]) {
+                    f[c] = value;
+                }
+            }
+        }
+
+        return f;
+    }
+
+    /**
+     * number of words of the decision bit-matrix of items [from, to)
+     */
+    private static long matrixWords(int[] w, int from, int to, int capacity) {
+        long total = sum(w, from, to);
+        int cap = (int) Math.min(capacity, total);
+        long prefix = 0;
+        long suffix = total;
+        long words = 0;
+
+        for (int i = from; i < to; i++) {
+            prefix += w[i];
+            suffix -= w[i];
+            long upper = Math.min(cap, prefix);
+            long lower = Math.max(w[i], cap - suffix);
+            if (upper >= lower) {
+                words += ((upper - lower) >> 6) + 1;
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * rolling table with a decision bit-matrix and backtracking of the
+     * decisions; row i only covers the capacities that can still lie
+     * on a path to the full capacity, i.e. [cap - suffix weight, prefix weight]
+     */
+    private static void bitMatrix(int[] v, int[] w, int from, int to, int capacity, boolean[] take) {
+        long total = sum(w, from, to);
+        int cap = (int) Math.min(capacity, total);
+        int rows = to - from;
+        int[] lowers = new int[rows];
+        int[] uppers = new int[rows];
+        int[] offsets = new int[rows + 1];
+        long prefix = 0;
+        long suffix = total;
+
+        /** window and position of each row **/
+        for (int i = from; i < to; i++) {
+            int r = i - from;
+            prefix += w[i];
+            suffix -= w[i];
+            uppers[r] = (int) Math.min(cap, prefix);
+            lowers[r] = (int) Math.max(w[i], cap - suffix);
+            int words = uppers[r] >= lowers[r] ? ((uppers[r] - lowers[r]) >> 6) + 1 : 0;
+            offsets[r + 1] = offsets[r] + words;
+        }
+
+        long[] decisions = new long[offsets[rows]];
+        int[] f = new int[cap + 1];
+        int previous = 0;
+
+        for (int i = from; i < to; i++) {
+            int r = i - from;
+            int wi = w[i];
+            int vi = v[i];
+            int lower = lowers[r];
+            int offset = offsets[r];
+            for (int c = previous + 1; c <= uppers[r]; c++) {
+                f[c] = f[previous];
+            }
+            previous = uppers[r];
+            for (int c = uppers[r]; c >= lower; c--) {
+                int value = f[c - wi] + vi;
+                if (value > f[c]) {
+                    f[c] = value;
+                    int bit = c - lower;
+                    decisions[offset + (bit >> 6)] |= 1L << bit;
+                }
+            }
+        }
+
+        int c = cap;
+        for (int i = to - 1; i >= from; i--) {
+            int r = i - from;
+            /** more capacity than the prefix weight is never needed **/
+            c = Math.min(c, uppers[r]);
+            if (c >= lowers[r]) {
+                int bit = c - lowers[r];
+                if ((decisions[offsets[r] + (bit >> 6)] & (1L << bit)) != 0) {
+                    take[i] = true;
+                    c -= w[i];
+                }
+            }
+        }
+    }
+
+    private static long sum(int[] a, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            result += a[i];
+        }
+        return result;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
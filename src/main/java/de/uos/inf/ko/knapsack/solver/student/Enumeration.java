@@ -4,17 +4,33 @@ import de.uos.inf.ko.knapsack.Instance;
 import de.uos.inf.ko.knapsack.Solution;
 import de.uos.inf.ko.knapsack.SolverInterface;
 
+import java.util.stream.IntStream;
+
 /**
  * A full enumeration algorithm for the binary knapsack problem.
+ *
+ * The subsets are visited in Gray code order, so two consecutive subsets differ in exactly one
+ * item and value and weight are updated in O(1). Subsets are represented as long bit masks,
+ * which limits the enumeration to {@link #MAX_ITEMS} items. For larger instances the mask range
+ * is split into chunks that are enumerated in parallel.
  * 
  * @author jtormoehlen, luhaupt
  */
 public class Enumeration implements SolverInterface<Solution> {
 
   /**
-   * generate all binary numbers from 0 to 2^n
-   * and apply each to a knapsack instance;
-   * pick the optimal solution such that:
+   * maximal number of items that can be enumerated
+   */
+  public static final int MAX_ITEMS = 63;
+
+  /**
+   * minimal number of items for a parallel enumeration
+   */
+  private static final int PARALLEL_ITEMS = 20;
+
+  /**
+   * enumerate all subsets of items in Gray code order
+   * and pick the optimal solution such that:
    * sum(weight_i) <= W for all i=1,...,n
    * and max value
    * @param instance The given knapsack instance
@@ -23,53 +39,89 @@ public class Enumeration implements SolverInterface<Solution> {
   @Override
   public Solution solve(Instance instance) {
 
-    int n = instance.getSize();
-
-    Solution solution = new Solution(instance);
-    Solution optimal = solution;
-
-    //convert all integers from 0 to 2^n...
-    for (int i = 0; i < Math.pow(2, n); i++) {
-
-      // ...to binary numbers
-      String binaryString = Integer.toBinaryString(i);
-
-      solution = binaryStringToSolution(binaryString, instance);
+    final int n = instance.getSize();
+    if (n > MAX_ITEMS) {
+      throw new IllegalArgumentException("Enumeration is limited to " + MAX_ITEMS + " items: " + n);
+    }
 
-      if (solution.isFeasible()) {
+    final int[] v = instance.getValueArray();
+    final int[] w = instance.getWeightArray();
+    final long capacity = instance.getCapacity();
 
-        //update optimal solution if possible
-        if ((solution.getValue() > optimal.getValue())) {
-          optimal = binaryStringToSolution(binaryString, instance);
-        }
+    //split the 2^n Gray code indices into 2^k chunks of 2^(n-k) indices
+    int k = 0;
+    if (n >= PARALLEL_ITEMS) {
+      int chunks = 8 * Runtime.getRuntime().availableProcessors();
+      while ((1 << k) < chunks && k < n - PARALLEL_ITEMS / 2) {
+        k++;
+      }
+    }
+    final int shift = n - k;
+
+    //enumerate all chunks and keep the best of them
+    long[] best = IntStream.range(0, 1 << k)
+            .parallel()
+            .mapToObj(chunk -> enumerate(v, w, capacity, n, (long) chunk << shift, (long) (chunk + 1) << shift))
+            .reduce((a, b) -> b[0] > a[0] ? b : a)
+            .get();
+
+    Solution optimal = new Solution(instance);
+    for (int i = 0; i < n; i++) {
+      if ((best[1] & (1L << i)) != 0) {
+        optimal.setInt(i, 1);
       }
     }
-
-    //print weight and value of valid solution
-    //System.out.println("Weight=" + solution.getWeight() + "|" + "Value=" + solution.getValue());
 
     return optimal;
   }
 
   /**
-   * apply a binary number (0,1) represented as string
-   * to a knapsack instance
-   * @param binaryString binary number as string
-   * @param instance given knapsack instance
-   * @return solution with (0,1) quantities for each item
+   * enumerate the subsets with Gray code indices [from, to); the
+   * loop runs until the index wraps to 'to', so 2^63 is a valid end
+   * @param v values
+   * @param w weights
+   * @param capacity capacity
+   * @param n number of items
+   * @param from first Gray code index
+   * @param to end of the index range (exclusive)
+   * @return best value and mask of the chunk
    */
-  private static Solution binaryStringToSolution(String binaryString, Instance instance) {
-    Solution solution = new Solution(instance);
+  private static long[] enumerate(int[] v, int[] w, long capacity, int n, long from, long to) {
+    //first subset of the chunk is computed directly
+    long mask = from ^ (from >>> 1);
+    long value = 0;
+    long weight = 0;
+    for (int i = 0; i < n; i++) {
+      if ((mask & (1L << i)) != 0) {
+        value += v[i];
+        weight += w[i];
+      }
+    }
+
+    long bestValue = weight <= capacity ? value : -1;
+    long bestMask = mask;
+
+    //every following subset flips exactly one item
+    for (long index = from + 1; index != to; index++) {
+      int item = Long.numberOfTrailingZeros(index);
+      mask ^= 1L << item;
 
-    for (int j = 0; j < binaryString.length(); j++) {
-      if (j >= binaryString.length()) {
-        solution.set(j, 0);
+      if ((mask & (1L << item)) != 0) {
+        value += v[item];
+        weight += w[item];
       } else {
-        solution.set(j, Character.getNumericValue(binaryString.charAt(j)));
+        value -= v[item];
+        weight -= w[item];
+      }
+
+      //update optimal solution if possible
+      if (value > bestValue && weight <= capacity) {
+        bestValue = value;
+        bestMask = mask;
       }
     }
 
-    return solution;
+    return new long[] {bestValue, bestMask};
   }
 
   /**
@@ -0,0 +1,263 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.Solution;
+import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.knapsack.SortedInstance;
+import de.uos.inf.ko.utils.Logger;
+
+import java.util.Arrays;
+
+/**
+ * An exact expanding-core solver for the binary knapsack problem (in the spirit of Pisinger's
+ * Minknap algorithm).
+ *
+ * The items are sorted by efficiency and the greedy break solution is used as starting point.
+ * The core is expanded alternately by the next item behind the core (which may be added) and the
+ * next item in front of the core (which may be removed). After every step the dynamic
+ * programming states (weight, value) are merged by weight, dominated states are dropped and states
+ * whose upper bound cannot beat the incumbent are pruned. The search stops as soon as no state
+ * is left, so usually only a small core around the break item is ever looked at.
+ *
+ * @author jtormoehlen
+ */
+public class ExpandingCore implements SolverInterface<Solution> {
+
+    /** items in order of decreasing efficiency **/
+    private SortedInstance sorted;
+    private int n;
+    private long capacity;
+
+    /** dynamic programming states: weight, value and changes to the break solution **/
+    private long[] stateWeight;
+    private long[] stateValue;
+    private Trail[] stateTrail;
+    private int states;
+
+    /** buffers for the next generation of states **/
+    private long[] nextWeight;
+    private long[] nextValue;
+    private Trail[] nextTrail;
+
+    /** incumbent **/
+    private long bestValue;
+    private Trail bestTrail;
+    private boolean bestFromCore;
+
+    @Override
+    public Solution solve(Instance instance) {
+        sorted = new SortedInstance(instance);
+        n = sorted.getSize();
+        capacity = sorted.getCapacity();
+        int[] x = new int[n];
+
+        /** find the break item b **/
+        int b = sorted.getBreakLevel();
+        long breakValue = sorted.getPrefixValue(b);
+        long breakWeight = sorted.getPrefixWeight(b);
+
+        /** greedy solution as first incumbent **/
+        int[] greedy = new int[n];
+        bestValue = breakValue;
+        long residual = capacity - breakWeight;
+        for (int j = 0; j < n; j++) {
+            if (j < b) {
+                greedy[sorted.getItem(j)] = 1;
+            } else if (sorted.getWeight(j) <= residual) {
+                greedy[sorted.getItem(j)] = 1;
+                residual -= sorted.getWeight(j);
+                bestValue += sorted.getValue(j);
+            }
+        }
+        bestTrail = null;
+        bestFromCore = false;
+
+        /** initial state: the break solution **/
+        allocate(16);
+        stateWeight[0] = breakWeight;
+        stateValue[0] = breakValue;
+        stateTrail[0] = null;
+        states = 1;
+
+        /** expand the core [s + 1, t - 1] until no state is left **/
+        int s = b - 1;
+        int t = b;
+        int steps = 0;
+        int maxStates = 1;
+        while (states > 0 && (s >= 0 || t < n)) {
+            if (t < n) {
+                expand(t, sorted.getWeight(t), sorted.getValue(t), s, t + 1);
+                t++;
+            }
+            if (s >= 0) {
+                expand(s, -sorted.getWeight(s), -sorted.getValue(s), s - 1, t);
+                s--;
+            }
+            steps++;
+            maxStates = Math.max(maxStates, states);
+        }
+
+        Logger.println("Core: " + steps + " expansions, at most " + maxStates + " states");
+
+        if (!bestFromCore) {
+            return new Solution(instance, greedy);
+        }
+
+        /** apply the changes of the best state to the break solution **/
+        for (int j = 0; j < b; j++) {
+            x[sorted.getItem(j)] = 1;
+        }
+        for (Trail trail = bestTrail; trail != null; trail = trail.next) {
+            int item = sorted.getItem(trail.item);
+            x[item] = 1 - x[item];
+        }
+
+        return new Solution(instance, x);
+    }
+
+    @Override
+    public String getName() {
+        return "Core(s)";
+    }
+
+    /**
+     * merge all states with their copy changed by item j;
+     * drop dominated states and states whose upper bound
+     * (given the next removable item s and the next addable
+     * item t) does not exceed the incumbent
+     *
+     * @param j     item to be added or removed
+     * @param dw    weight change
+     * @param dp    value change
+     * @param s     next item in front of the core
+     * @param t     next item behind the core
+     */
+    private void expand(int j, long dw, long dp, int s, int t) {
+        if (nextWeight.length < 2 * states) {
+            grow(2 * states);
+        }
+
+        /** both lists are sorted by weight; merge them **/
+        int a = 0;
+        int c = 0;
+        int count = 0;
+        long lastValue = Long.MIN_VALUE;
+        while (a < states || c < states) {
+            long weight;
+            long value;
+            Trail trail;
+            boolean changed;
+            if (c >= states || (a < states && (stateWeight[a] < stateWeight[c] + dw
+                    || (stateWeight[a] == stateWeight[c] + dw && stateValue[a] >= stateValue[c] + dp)))) {
+                weight = stateWeight[a];
+                value = stateValue[a];
+                trail = stateTrail[a];
+                changed = false;
+                a++;
+            } else {
+                weight = stateWeight[c] + dw;
+                value = stateValue[c] + dp;
+                trail = stateTrail[c];
+                changed = true;
+                c++;
+            }
+
+            /** dominated by a lighter state (which may have been pruned itself) **/
+            if (value <= lastValue) {
+                continue;
+            }
+            lastValue = value;
+
+            if (changed) {
+                trail = new Trail(j, trail);
+            }
+
+            /** new incumbent **/
+            if (weight <= capacity && value > bestValue) {
+                bestValue = value;
+                bestTrail = trail;
+                bestFromCore = true;
+            }
+
+            if (upperBound(weight, value, s, t) <= bestValue) {
+                continue;
+            }
+
+            nextWeight[count] = weight;
+            nextValue[count] = value;
+            nextTrail[count] = trail;
+            count++;
+        }
+
+        /** swap buffers **/
+        long[] tmpWeight = stateWeight;
+        long[] tmpValue = stateValue;
+        Trail[] tmpTrail = stateTrail;
+        stateWeight = nextWeight;
+        stateValue = nextValue;
+        stateTrail = nextTrail;
+        nextWeight = tmpWeight;
+        nextValue = tmpValue;
+        nextTrail = tmpTrail;
+        Arrays.fill(nextTrail, 0, states, null);
+        states = count;
+    }
+
+    /**
+     * upper bound of a state: free capacity can only be filled
+     * with items of efficiency at most p_t/w_t, exceeded capacity
+     * must be freed with items of efficiency at least p_s/w_s
+     */
+    private long upperBound(long weight, long value, int s, int t) {
+        if (weight <= capacity) {
+            if (t >= n) {
+                return value;
+            }
+            if (sorted.getWeight(t) == 0) {
+                return Long.MAX_VALUE;
+            }
+            return value + Math.floorDiv((capacity - weight) * sorted.getValue(t), sorted.getWeight(t));
+        }
+        /** items in front of a weightless item are weightless as well **/
+        if (s < 0 || sorted.getWeight(s) == 0) {
+            return Long.MIN_VALUE;
+        }
+        return value - ceilDiv((weight - capacity) * sorted.getValue(s), sorted.getWeight(s));
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+
+    private void allocate(int size) {
+        stateWeight = new long[size];
+        stateValue = new long[size];
+        stateTrail = new Trail[size];
+        nextWeight = new long[size];
+        nextValue = new long[size];
+        nextTrail = new Trail[size];
+    }
+
+    private void grow(int size) {
+        stateWeight = Arrays.copyOf(stateWeight, size);
+        stateValue = Arrays.copyOf(stateValue, size);
+        stateTrail = Arrays.copyOf(stateTrail, size);
+        nextWeight = new long[size];
+        nextValue = new long[size];
+        nextTrail = new Trail[size];
+    }
+
+    /**
+     * persistent list of items whose decision differs
+     * from the break solution
+     */
+    private static final class Trail {
+        final int item;
+        final Trail next;
+
+        Trail(int item, Trail next) {
+            this.item = item;
+            this.next = next;
+        }
+    }
+}
@@ -3,110 +3,180 @@ package de.uos.inf.ko.knapsack.solver.student;
 import de.uos.inf.ko.knapsack.FractionalSolution;
 import de.uos.inf.ko.knapsack.Instance;
 import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.knapsack.SortedInstance;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * An optimal greedy solver for the fractional knapsack problem.
  *
+ * The critical item is either found by sorting all items by efficiency (O(n log n)) or by
+ * selection: a randomized weighted-median partition of an index array in the style of
+ * Balas and Zemel that runs in expected O(n) without sorting.
+ *
  * @author jtormoehlen
  */
 public class FractionalSolver implements SolverInterface<FractionalSolution> {
 
+    /**
+     * How the critical item is determined
+     */
+    public enum Strategy {
+        SORTING, SELECTION
+    }
+
+    private final Strategy strategy;
+
+    public FractionalSolver() {
+        this(Strategy.SORTING);
+    }
+
+    public FractionalSolver(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
     @Override
     public FractionalSolution solve(Instance instance) {
-        List<Item> itemList = new ArrayList<>();
-        FractionalSolution fractionalSolution = new FractionalSolution(instance);
-
-        /** store every object as item with identifier and ratio in the list **/
-        for (int i = 0; i < instance.getSize(); i++) {
-            double ratio = (instance.getWeight(i) / (double) instance.getValue(i));
-            itemList.add(new Item(i, ratio));
+        if (strategy == Strategy.SELECTION) {
+            return solveBySelection(instance);
         }
 
-        /** sort the list by ratio starting with lowest **/
-        Collections.sort(itemList);
+        FractionalSolution fractionalSolution = new FractionalSolution(instance);
 
-        /** initialize solution vector and index **/
-        double[] x = new double[instance.getSize()];
-        int j = 0;
+        /** items sorted by ratio starting with the most efficient **/
+        SortedInstance sorted = new SortedInstance(instance);
 
-        /** as long as capacity not reached bind another item **/
-        while (listSumTo(itemList, j, instance) <= instance.getCapacity()) {
-            x[j] = 1.0d;
-            j++;
+        /** bind all items in front of the critical item completely **/
+        int j = sorted.getCriticalLevel(0, instance.getCapacity());
+        for (int i = 0; i < j; i++) {
+            fractionalSolution.setDouble(sorted.getItem(i), 1.0d);
         }
 
         /** fractional part of solution => solution is optimal **/
-        x[j] = ((double) instance.getCapacity() - listSumTo(itemList, j - 1, instance)) / (double) (instance.getWeight(itemList.get(j).item));
-
-        /** bind solution vector to FractionalSolution Object **/
-        for (int i = 0; i < x.length; i++) {
-            fractionalSolution.set(itemList.get(i).item, x[i]);
+        if (j < sorted.getSize()) {
+            double residual = instance.getCapacity() - sorted.getPrefixWeight(j);
+            fractionalSolution.setDouble(sorted.getItem(j), residual / sorted.getWeight(j));
         }
 
         return fractionalSolution;
     }
 
     /**
-     * weight sum of all items in the list
-     * @param itemList items
-     * @param to upper limit of the sum
-     * @param instance initial instance
-     * @return result as integer
+     * solves the fractional knapsack problem in expected linear time
+     *
+     * @param instance knapsack instance
+     * @return optimal fractional solution
      */
-    private static int listSumTo(List<Item> itemList, int to, Instance instance) {
-        int result = 0;
+    private static FractionalSolution solveBySelection(Instance instance) {
+        FractionalSolution fractionalSolution = new FractionalSolution(instance);
+        int[] v = instance.getValueArray();
+        int[] w = instance.getWeightArray();
+        int[] items = identity(instance.getSize());
+
+        /** bind all items in front of the critical item completely **/
+        int j = select(v, w, instance.getCapacity(), items);
+        long residual = instance.getCapacity();
+        for (int i = 0; i < j; i++) {
+            fractionalSolution.setDouble(items[i], 1.0d);
+            residual -= w[items[i]];
+        }
 
-        for (int i = 0; i <= to; i++) {
-            result += instance.getWeight(itemList.get(i).item);
+        /** fractional part of solution => solution is optimal **/
+        if (j < items.length) {
+            fractionalSolution.setDouble(items[j], residual / (double) w[items[j]]);
         }
 
-        return result;
+        return fractionalSolution;
     }
 
     /**
-     * appends some item information to a string
-     * @param list contain items
-     * @param instance initial instance
-     * @return string as result
+     * partitions the items such that items[0,...,j-1] fit into the
+     * knapsack and are at least as efficient as items[j], which is
+     * the critical item (j = n if all items fit); every round splits
+     * the remaining range around a random pivot into more efficient,
+     * equally efficient and less efficient items and continues in the
+     * part that contains the critical item
+     *
+     * @param v        values
+     * @param w        weights
+     * @param capacity capacity
+     * @param items    item indices (permuted)
+     * @return position j of the critical item
      */
-    private static String listToString(List<Item> list, Instance instance) {
-        String result = "";
-
-        for (int i = 0; i < list.size(); i++) {
-            result += list.get(i).item + "|r=" + list.get(i).ratio + "|w=" + instance.getWeight(list.get(i).item) + "|v=" + instance.getValue(list.get(i).item) + "\n";
+    static int select(int[] v, int[] w, long capacity, int[] items) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long residual = capacity;
+        int lo = 0;
+        int hi = items.length;
+
+        while (lo < hi) {
+            int pivot = items[random.nextInt(lo, hi)];
+
+            /** three-way partition: [lo, gt) more, [gt, eq) equally, [eq, hi) less efficient **/
+            int gt = lo;
+            int eq = hi;
+            int i = lo;
+            long gtWeight = 0;
+            while (i < eq) {
+                int item = items[i];
+                int cmp = compare(v, w, item, pivot);
+                if (cmp < 0) {
+                    gtWeight += w[item];
+                    items[i++] = items[gt];
+                    items[gt++] = item;
+                } else if (cmp > 0) {
+                    items[i] = items[--eq];
+                    items[eq] = item;
+                } else {
+                    i++;
+                }
+            }
+
+            /** critical item is more efficient than the pivot **/
+            if (gtWeight > residual) {
+                hi = gt;
+                continue;
+            }
+
+            /** critical item is as efficient as the pivot **/
+            residual -= gtWeight;
+            for (int k = gt; k < eq; k++) {
+                if (w[items[k]] > residual) {
+                    return k;
+                }
+                residual -= w[items[k]];
+            }
+
+            /** critical item is less efficient than the pivot **/
+            lo = eq;
         }
 
-        return result;
-    }
-
-    @Override
-    public String getName() {
-        return "Fractional(s)";
+        return lo;
     }
 
     /**
-     * Item with identifier and ratio of w_i/c_i
+     * compares the efficiency of two items; weightless items are the
+     * most efficient ones
+     *
+     * @return negative if item a is more efficient than item b
      */
-    private class Item implements Comparable<Item> {
-        double ratio;
-        int item;
-
-        public Item(int item, double ratio) {
-            this.item = item;
-            this.ratio = ratio;
+    private static int compare(int[] v, int[] w, int a, int b) {
+        if (w[a] == 0 || w[b] == 0) {
+            return w[a] != w[b] ? Integer.compare(w[a], w[b]) : Integer.compare(v[b], v[a]);
         }
+        return Long.compare((long) v[b] * w[a], (long) v[a] * w[b]);
+    }
 
-        @Override
-        public int compareTo(Item item) {
-            double dif = this.ratio - item.ratio;
-
-            if (dif == 0.0d) return 0;
-            else if (dif > 0.0d) return 1;
-            else return -1;
+    private static int[] identity(int n) {
+        int[] items = new int[n];
+        for (int i = 0; i < n; i++) {
+            items[i] = i;
         }
+        return items;
+    }
+
+    @Override
+    public String getName() {
+        return strategy == Strategy.SELECTION ? "Fractional-select(s)" : "Fractional(s)";
     }
 }
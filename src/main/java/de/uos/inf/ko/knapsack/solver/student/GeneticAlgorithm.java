@@ -2,64 +2,80 @@ package de.uos.inf.ko.knapsack.solver.student;
 
 import de.uos.inf.ko.knapsack.Instance;
 import de.uos.inf.ko.knapsack.Solution;
-import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.knapsack.SortedInstance;
+import de.uos.inf.ko.utils.Logger;
 
-import java.util.*;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Solver for the binary knapsack problem based on a genetic algorithm.
  *
+ * Chromosomes are bitsets ({@code long[]}) over the items in order of decreasing efficiency, so
+ * crossover and mutation work on whole words. Every child is repaired and filled up greedily by
+ * efficiency ({@link GreedyRepair}), so the population only holds feasible solutions.
+ * The population has a fixed size; parents are chosen by tournaments and children replace the
+ * least fit individual (steady state). {@link #solve(Instance)} evolves one population (island)
+ * per thread and lets the islands exchange their best individuals (migration). An iteration (see
+ * {@link #setMaxIterations(long)}) is one child of an island; if they are bounded, the islands
+ * migrate in fixed rounds, otherwise whenever they get there.
+ *
  * @author jtormoehlen
  */
-public class GeneticAlgorithm implements SolverInterface<Solution> {
+public class GeneticAlgorithm extends RandomizedSolver {
+
+    /** number of individuals in a tournament **/
+    private static final int TOURNAMENT = 3;
+
+    /** default population size of an island **/
+    public static final int DEFAULT_POPULATION = 100;
+
+    /** default mutation probability **/
+    public static final float DEFAULT_MUTATION = .75f;
+
+    /** default wall-clock budget in milliseconds **/
+    public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+    /** children of an island between two checks of the clock **/
+    private static final int BATCH = 64;
+
+    /** batches between two migrations **/
+    private static final int MIGRATION_INTERVAL = 16;
+
+    private final int islands;
+    private final long budgetMillis;
+
+    public GeneticAlgorithm() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET_MILLIS);
+    }
 
     /**
-     * solve knapsack problem using genetic algorithm
+     * @param islands      number of islands (each evolves in its own thread)
+     * @param budgetMillis wall-clock budget of {@link #solve(Instance)} in milliseconds
+     */
+    public GeneticAlgorithm(int islands, long budgetMillis) {
+        if (islands < 1) {
+            throw new IllegalArgumentException("number of islands must be positive: " + islands);
+        }
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("budget must not be negative: " + budgetMillis);
+        }
+        this.islands = islands;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * solve knapsack problem using the island model of the
+     * genetic algorithm on all islands
      *
      * @param instance The given knapsack instance
      * @return approximated solution
      */
     @Override
     public Solution solve(Instance instance) {
-        if (true) {
-            throw new UnsupportedOperationException();
-        }
-
-        List<Solution> solutions = new ArrayList<>();
-        Solution best = new Solution(instance);
-        String statistics = "";
-
-        long maxTime = 100;
-        int startPopSize = 10;
-        float mutProb = 0.25f;
-        Solution solution = solve(instance, maxTime, startPopSize, mutProb);
-        solutions.add(solution);
-        statistics = appendStatistics(statistics, instance.getSize(), maxTime, startPopSize, mutProb, solution.getValue());
-
-        startPopSize = 100;
-        solution = solve(instance, maxTime, startPopSize, mutProb);
-        solutions.add(solution);
-        statistics = appendStatistics(statistics, instance.getSize(), maxTime, startPopSize, mutProb, solution.getValue());
-
-        mutProb = 0.75f;
-        solution = solve(instance, maxTime, startPopSize, mutProb);
-        solutions.add(solution);
-        statistics = appendStatistics(statistics, instance.getSize(), maxTime, startPopSize, mutProb, solution.getValue());
-
-        maxTime = 1000;
-        solution = solve(instance, maxTime, startPopSize, mutProb);
-        solutions.add(solution);
-        statistics = appendStatistics(statistics, instance.getSize(), maxTime, startPopSize, mutProb, solution.getValue());
-
-        for (Solution sol : solutions) {
-            if (sol.getValue() > best.getValue()) {
-                best = new Solution(sol);
-            }
-        }
-
-        System.out.println(statistics);
-
-        return best;
+        return solve(instance, budgetMillis, DEFAULT_POPULATION, DEFAULT_MUTATION, islands);
     }
 
     @Override
@@ -68,296 +84,499 @@ public class GeneticAlgorithm implements SolverInterface<Solution> {
     }
 
     /**
-     * solve knapsack problem using genetic algorithm:
-     * creating a starting population and generate new
-     * individuals by choosing two random parent
-     * solutions and crossing their genes;
-     * mutate the child and add it to the population;
-     * regularly reduce the population by natural
-     * selection; repeat until time limit is reached
+     * solve knapsack problem using genetic algorithm on a
+     * single population
      *
      * @param instance given knapsack instance
      * @param maxTime main loop maximum time limit in ms
-     * @param startPopSize starting population size
+     * @param startPopSize population size
      * @param mutProb mutation probability {0.0,...,1.0}
      * @return approximated solution
      */
     public Solution solve(Instance instance, long maxTime, int startPopSize, float mutProb) {
-        /** best solution **/
-        Solution sStar = new Solution(instance);
+        return solve(instance, maxTime, startPopSize, mutProb, 1);
+    }
 
-        /** maximum possible weight of instance **/
-        Solution tmp = new Solution(instance);
-        for (int i = 0; i < instance.getSize(); i++) {
-            tmp.set(i, 1);
-        }
-        final int w = tmp.getWeight();
-
-        /** initial population and compute fitness of each individual **/
-        Set<String> populationSet = generateInitialPopulation(instance, startPopSize);
-        Map<String, Integer> fitnessMap = new HashMap<>();
-        for (String individual : populationSet) {
-            Solution individualSolution = stringToSolution(individual, instance);
-            fitnessMap.put(individual, computeFitness(individualSolution, w));
+    /**
+     * solve knapsack problem using genetic algorithm (island
+     * model): every island evolves its own population in its
+     * own thread; on each island, parents are chosen by
+     * tournament selection and their genes are crossed;
+     * the child is mutated and replaces the least fit
+     * individual of the population if it is fitter and
+     * no duplicate (steady-state replacement); regularly
+     * each island sends a copy of its best individual to
+     * the next island (ring); repeat until time limit or
+     * iteration bound is reached or a solution reaches the
+     * Dantzig bound
+     *
+     * @param instance given knapsack instance
+     * @param maxTime main loop maximum time limit in ms
+     * @param startPopSize population size of each island
+     * @param mutProb mutation probability {0.0,...,1.0}
+     * @param islands number of islands
+     * @return best feasible solution of all islands
+     */
+    public Solution solve(Instance instance, long maxTime, int startPopSize, float mutProb, int islands) {
+        SortedInstance sorted = new SortedInstance(instance);
+        Genome genome = new Genome(sorted);
+        long bound = sorted.getUpperBound(0, instance.getCapacity());
+        final long start = System.nanoTime();
+        final long tMax = start + maxTime * 1000000L;
+
+        /** islands with their own random streams and incoming migrants **/
+        SplittableRandom random = newRandom();
+        Island[] archipelago = new Island[islands];
+        for (int i = 0; i < islands; i++) {
+            archipelago[i] = new Island(genome, Math.max(startPopSize, 1), mutProb, random.split());
         }
-        final int popSizeMax = 10 * startPopSize;
-
-        /** loop until time limit reached **/
-        long t0 = System.currentTimeMillis();
-        final long tMax = t0 + maxTime;
-        while (t0 <= tMax) {
-
-            /** get random mother and remove from population **/
-            Iterator<String> populationIterator = populationSet.iterator();
-            Random random = new Random();
-            int r = random.nextInt(populationSet.size());
-            for (int i = 0; i < r - 1; i++) {
-                populationIterator.next();
-            }
-            String sM = populationIterator.next();
-            populationIterator.remove();
-            /** get random father **/
-            populationIterator = populationSet.iterator();
-            random.nextInt(populationSet.size());
-            for (int i = 0; i < r - 1; i++) {
-                populationIterator.next();
-            }
-            String sF = populationIterator.next();
-            /** add mother back to population **/
-            populationSet.add(sM);
-
-            /** generate child from mother and father **/
-            String sC = onePointCrossover(sM, sF);
-
-            /** mutate child with probability 0.0,...,1.0 **/
-            sC = mutate(sC, mutProb);
 
-            /** compute child fitness **/
-            fitnessMap.put(sC, computeFitness(stringToSolution(sC, instance), w));
-            populationSet.add(sC);
+        new Rounds(archipelago, tMax, bound, getMaxIterations()).run();
 
-            /** natural selection on population **/
-            if (populationSet.size() >= popSizeMax) {
-                populationSet = naturalSelection(populationSet, fitnessMap, startPopSize);
-            }
-
-            t0 = System.currentTimeMillis();
-        }
-
-        /** update best solution when possible **/
-        Iterator<String> populationIterator = populationSet.iterator();
-        while (populationIterator.hasNext()) {
-            Solution individualSolution = stringToSolution(populationIterator.next(), instance);
-            if (individualSolution.isFeasible() && individualSolution.getValue() > sStar.getValue()) {
-                sStar = new Solution(individualSolution);
+        /** best feasible individual of all islands **/
+        Island best = archipelago[0];
+        long children = 0;
+        for (Island island : archipelago) {
+            if (island.bestValue > best.bestValue) {
+                best = island;
             }
+            children += island.children;
         }
 
-        return sStar;
-    }
-
-    /**
-     * compute the fitness of a single solution
-     * by subtracting a penalty from the solution's
-     * total value (knapsack problem may be defined
-     * with weights w, profits c, solution x,
-     * instance size n and capacity W):
-     * f <- sum(x_i*c_i) for all i elem {1,...,n}
-     * penalty <- sum(w_i)*|sum(x_i*w_i)-W| for all i elem {1,...,n}
-     * f <- f-penalty
-     *
-     * @param solution solution
-     * @param w        weight of all items
-     * @return fitness value
-     */
-    private static int computeFitness(Solution solution, int w) {
-        int fitness = solution.getValue();
-        int penalty = w * Math.abs(solution.getWeight() - solution.getInstance().getCapacity());
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        Logger.println("GA: " + islands + " islands, " + children + " children, "
+                + (long) (children / seconds) + " children/s");
 
-        return fitness - penalty;
+        return genome.toSolution(best.best);
     }
 
     /**
-     * natural selection by (my + lambda) strategy:
-     * remove all (my + lambda) but the my (initial pop size)
-     * fittest solutions
-     *
-     * @param populationSet population
-     * @param fitnessMap    fitness of each individual
+     * concurrent evolution of the islands in rounds of
+     * MIGRATION_INTERVAL batches; after every round each island
+     * sends a copy of its best individual to the next island (ring)
+     * and the run is stopped at the deadline, after the maximal
+     * number of children or at the Dantzig bound; with bounded
+     * children the islands migrate together at the barrier in
+     * island order, so a run does not depend on thread timing,
+     * otherwise each island migrates on its own through the queue
+     * of the next island
      */
-    private static Set<String> naturalSelection(Set<String> populationSet, Map<String, Integer> fitnessMap, int number) {
-        List<Individual> fitnessList = new ArrayList<>();
-        for (String s : fitnessMap.keySet()) {
-            int fitness = fitnessMap.get(s);
-            fitnessList.add(new Individual(s, fitness));
+    private static final class Rounds extends ParallelRun {
+        final Island[] islands;
+        final long deadline;
+        final long bound;
+        final long maxChildren;
+
+        Rounds(Island[] islands, long deadline, long bound, long maxChildren) {
+            super(islands.length, maxChildren < Long.MAX_VALUE);
+            this.islands = islands;
+            this.deadline = deadline;
+            this.bound = bound;
+            this.maxChildren = maxChildren;
         }
 
-        Collections.sort(fitnessList);
-        for (int i = number - 1; i < fitnessList.size(); i++) {
-            String individual = fitnessList.get(i).s;
-            populationSet.remove(individual);
+        @Override
+        void work(int i) throws InterruptedException, BrokenBarrierException {
+            Island island = islands[i];
+            while (!stop) {
+                for (int batch = 0; batch < MIGRATION_INTERVAL && !stop && island.children < maxChildren
+                        && island.bestValue < bound && System.nanoTime() <= deadline; batch++) {
+                    island.evolve((int) Math.min(BATCH, maxChildren - island.children));
+                }
+
+                if (barrier != null) {
+                    barrier.await();
+                } else {
+                    send(i);
+                    island.immigrate();
+                    if (island.bestValue >= bound || island.children >= maxChildren
+                            || System.nanoTime() > deadline) {
+                        stop = true;
+                    }
+                }
+            }
         }
 
-        return populationSet;
-    }
-
-    /**
-     * mutate child solution by flipping random
-     * gen with probability p elem {0.0,...,1.0}
-     *
-     * @param s child solution
-     * @param p probability
-     * @return (mutated) child solution
-     */
-    private static String mutate(String s, double p) {
-        Random random = new Random();
-        double q = random.nextDouble();
-
-        if (q <= p) {
-            int r = random.nextInt(s.length());
-            StringBuilder chromosome = new StringBuilder(s);
+        /**
+         * send a copy of the best individual of island i to the next island
+         */
+        private void send(int i) {
+            if (islands.length > 1) {
+                islands[(i + 1) % islands.length].migrants.offer(islands[i].best.clone());
+            }
+        }
 
-            int gen = Character.getNumericValue(s.charAt(r));
-            if (gen == 0) {
-                chromosome.setCharAt(r, '1');
-            } else {
-                chromosome.setCharAt(r, '0');
+        @Override
+        void synchronize() {
+            for (int i = 0; i < islands.length; i++) {
+                send(i);
+            }
+            for (Island island : islands) {
+                island.immigrate();
             }
 
-            return chromosome.toString();
-        } else {
-            return s;
+            boolean optimal = false;
+            boolean done = true;
+            for (Island island : islands) {
+                optimal |= island.bestValue >= bound;
+                done &= island.children >= maxChildren;
+            }
+            stop = optimal || done || System.nanoTime() > deadline;
         }
     }
 
     /**
-     * generate child solution from mother and father
-     * using one-point-crossover operator: child inherits
-     * first part (1,...,r) from mother and second
-     * (r+1,...,n) from father with random integer
-     * r elem {1,...,n-1}
-     *
-     * @param sM mother
-     * @param sF father
-     * @return child
+     * sub-population of the island model with its best feasible
+     * individual; only the migrants queue is accessed by other threads
      */
-    private static String onePointCrossover(String sM, String sF) {
-        Random random = new Random();
-        int r = random.nextInt(sM.length() - 1);
-
-        String sC = "";
+    private static final class Island {
+        final Genome genome;
+        final Population population;
+        final float mutProb;
+        final SplittableRandom random;
+        final Queue<long[]> migrants = new ConcurrentLinkedQueue<>();
+
+        /** best feasible individual **/
+        final long[] best;
+        long bestValue;
+        long children;
+
+        Island(Genome genome, int size, float mutProb, SplittableRandom random) {
+            this.genome = genome;
+            this.population = new Population(genome, size);
+            this.mutProb = mutProb;
+            this.random = random;
+            this.best = new long[genome.words];
+
+            /** initial population and compute fitness of each individual **/
+            for (int i = 0; i < 4 * size && population.size < size; i++) {
+                genome.random(population.child, random);
+                accept(population.offer());
+            }
+        }
 
-        for (int i = 0; i < sM.length(); i++) {
+        /**
+         * generate children
+         *
+         * @param count number of children
+         */
+        void evolve(int count) {
+            for (int k = 0; k < count; k++) {
+                /** select mother and father by tournaments **/
+                long[] mother = population.genes[population.tournament(TOURNAMENT, random)];
+                long[] father = population.genes[population.tournament(TOURNAMENT, random)];
+
+                /** generate child from mother and father **/
+                genome.onePointCrossover(mother, father, population.child, random);
+
+                /** mutate child with probability 0.0,...,1.0 **/
+                if (random.nextDouble() <= mutProb) {
+                    genome.mutate(population.child, random);
+                }
+
+                /** compute child fitness and replace the least fit individual **/
+                accept(population.offer());
+            }
+            children += count;
+        }
 
-            if (i <= r) {
-                sC += sM.charAt(i);
-            } else {
-                sC += sF.charAt(i);
+        /**
+         * offer all waiting migrants to the population
+         */
+        void immigrate() {
+            for (long[] migrant = migrants.poll(); migrant != null; migrant = migrants.poll()) {
+                System.arraycopy(migrant, 0, population.child, 0, genome.words);
+                accept(population.offer());
             }
         }
 
-        return sC;
+        /**
+         * update the best feasible individual by a new individual
+         */
+        private void accept(int slot) {
+            if (slot >= 0 && population.weight[slot] <= genome.capacity && population.value[slot] > bestValue) {
+                bestValue = population.value[slot];
+                System.arraycopy(population.genes[slot], 0, best, 0, genome.words);
+            }
+        }
     }
 
     /**
-     * generate the initial population
-     *
-     * @param instance instance
-     * @param popSize  population size
-     * @return set of string solutions
+     * layout of the chromosomes: bit j of word j / 64 stands for
+     * the item at level j in efficiency order
      */
-    private static Set<String> generateInitialPopulation(Instance instance, int popSize) {
-        Set<String> populationSet = new HashSet<>();
-
-        for (int i = 0; i < popSize; i++) {
-            Solution randomSolution = generateRandomStartSolution(instance);
-            populationSet.add(solutionToString(randomSolution));
+    static final class Genome {
+        final SortedInstance sorted;
+        final int n;
+        final int words;
+        final long capacity;
+
+        Genome(SortedInstance sorted) {
+            this.sorted = sorted;
+            this.n = sorted.getSize();
+            this.words = (n + 63) >>> 6;
+            this.capacity = sorted.getCapacity();
         }
 
-        return populationSet;
-    }
+        /**
+         * @return mask of the used bits of a word
+         */
+        long mask(int word) {
+            int bits = n - (word << 6);
+            return bits >= 64 ? -1L : (1L << bits) - 1;
+        }
 
-    /**
-     * generate a random (in-)feasible start solution
-     *
-     * @param instance instance
-     * @return solution
-     */
-    private static Solution generateRandomStartSolution(Instance instance) {
-        int bound = 2;
-        int n = instance.getSize();
-        Solution solution = new Solution(instance);
-        Random random = new Random();
-
-        for (int i = 0; i < n; i++) {
-            solution.set(i, random.nextInt(bound));
+        /**
+         * a random (in-)feasible chromosome
+         */
+        void random(long[] x, SplittableRandom random) {
+            for (int i = 0; i < words; i++) {
+                x[i] = random.nextLong() & mask(i);
+            }
         }
 
-        return solution;
-    }
+        /**
+         * one-point crossover: child inherits the bits 0,...,r from the
+         * mother and r+1,...,n-1 from the father with random r
+         */
+        void onePointCrossover(long[] mother, long[] father, long[] child, SplittableRandom random) {
+            if (n < 2) {
+                System.arraycopy(mother, 0, child, 0, words);
+                return;
+            }
+            int r = random.nextInt(n - 1);
+            int word = r >>> 6;
+            System.arraycopy(mother, 0, child, 0, word);
+            long low = (2L << (r & 63)) - 1;
+            child[word] = (mother[word] & low) | (father[word] & ~low);
+            System.arraycopy(father, word + 1, child, word + 1, words - word - 1);
+        }
 
-    /**
-     * converts a string solution to a solution
-     *
-     * @param s        string solution
-     * @param instance instance
-     * @return solution
-     */
-    private static Solution stringToSolution(String s, Instance instance) {
-        Solution solution = new Solution(instance);
+        /**
+         * flip a random gene
+         */
+        void mutate(long[] x, SplittableRandom random) {
+            if (n == 0) {
+                return;
+            }
+            int j = random.nextInt(n);
+            x[j >>> 6] ^= 1L << j;
+        }
 
-        for (int i = 0; i < instance.getSize(); i++) {
-            solution.set(i, Character.getNumericValue(s.charAt(i)));
+        /**
+         * @return 64-bit hash of a chromosome (never 0)
+         */
+        long hash(long[] x) {
+            long h = 0x9E3779B97F4A7C15L;
+            for (long word : x) {
+                h = (h ^ word) * 0xBF58476D1CE4E5B9L;
+                h ^= h >>> 31;
+            }
+            h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+            h ^= h >>> 31;
+            return h != 0 ? h : 1;
         }
 
-        return solution;
+        /**
+         * @return solution of the instance
+         */
+        Solution toSolution(long[] x) {
+            int[] result = new int[n];
+            for (int j = 0; j < n; j++) {
+                if ((x[j >>> 6] & (1L << j)) != 0) {
+                    result[sorted.getItem(j)] = 1;
+                }
+            }
+            return new Solution(sorted.getInstance(), result);
+        }
     }
 
     /**
-     * converts a solution to a string solution
+     * population of fixed capacity; the chromosomes are kept in
+     * an array together with their value, weight, fitness and a
+     * 64-bit hash; a min-heap on the fitness gives the least fit
+     * individual for replacement and a hash set of the chromosome
+     * hashes rejects duplicates.
      *
-     * @param solution solution
-     * @return string solution
+     * Every chromosome is repaired and improved by a {@link GreedyRepair}
+     * before it is offered, so all individuals are feasible and the
+     * fitness of an individual is its total value.
      */
-    private static String solutionToString(Solution solution) {
-        String s = "";
+    static final class Population {
+        final Genome genome;
+        final int capacity;
+
+        /** individuals 0,...,size-1 **/
+        final long[][] genes;
+        final long[] value;
+        final long[] weight;
+        final long[] fitness;
+        final long[] hash;
+        int size;
+
+        /** chromosome of the next candidate, swapped into the population on acceptance **/
+        long[] child;
+
+        /** min-heap of individuals by fitness and the position of each individual in it **/
+        private final int[] heap;
+        private final int[] position;
+
+        /** open addressing hash set of the chromosome hashes (0 marks a free entry) **/
+        private final long[] table;
+
+        private final GreedyRepair repair;
+
+        Population(Genome genome, int capacity) {
+            this.genome = genome;
+            this.capacity = capacity;
+            this.genes = new long[capacity][genome.words];
+            this.value = new long[capacity];
+            this.weight = new long[capacity];
+            this.fitness = new long[capacity];
+            this.hash = new long[capacity];
+            this.child = new long[genome.words];
+            this.heap = new int[capacity];
+            this.position = new int[capacity];
+            this.table = new long[Integer.highestOneBit(Math.max(4 * capacity - 1, 1)) << 1];
+            this.repair = new GreedyRepair(genome.sorted);
+        }
 
-        for (int i = 0; i < solution.getInstance().getSize(); i++) {
-            s += solution.get(i);
+        /**
+         * tournament selection: the fittest of k random individuals
+         *
+         * @return index of the selected individual
+         */
+        int tournament(int k, SplittableRandom random) {
+            int winner = random.nextInt(size);
+            for (int i = 1; i < k; i++) {
+                int j = random.nextInt(size);
+                if (fitness[j] > fitness[winner]) {
+                    winner = j;
+                }
+            }
+            return winner;
         }
 
-        return s;
-    }
+        /**
+         * offer the chromosome in child to the population: it is repaired
+         * and then added while the population is not full, otherwise it
+         * replaces the least fit individual if it is fitter; duplicates
+         * are rejected
+         *
+         * @return index of the new individual or -1 if rejected
+         */
+        int offer() {
+            repair.repair(child);
+            long h = genome.hash(child);
+            if (contains(h)) {
+                return -1;
+            }
+            long v = repair.getValue();
+            long w = repair.getWeight();
+            long f = v;
+
+            int slot;
+            if (size < capacity) {
+                slot = size++;
+                heap[slot] = slot;
+                position[slot] = slot;
+            } else {
+                slot = heap[0];
+                if (f <= fitness[slot]) {
+                    return -1;
+                }
+                remove(hash[slot]);
+            }
 
-    private static String appendStatistics(String s, int n, long maxTime, int startPopSize, float mutProb, int value) {
-        String res = "";
+            long[] tmp = genes[slot];
+            genes[slot] = child;
+            child = tmp;
+            value[slot] = v;
+            weight[slot] = w;
+            fitness[slot] = f;
+            hash[slot] = h;
+            add(h);
+
+            siftUp(position[slot]);
+            siftDown(position[slot]);
+            return slot;
+        }
 
-        if (s == "") {
-            s += "\nGenetic Algorithm Statistics\n";
-            s += "n\tTime\tPopSize\tMutProb\tTotVal\n";
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (fitness[heap[parent]] <= fitness[heap[i]]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
         }
 
-        res += s + n + "\t" + maxTime + "ms\t" + startPopSize + "\t" + mutProb + "\t" + value + "\n";
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                if (left < size && fitness[heap[left]] < fitness[heap[smallest]]) {
+                    smallest = left;
+                }
+                if (left + 1 < size && fitness[heap[left + 1]] < fitness[heap[smallest]]) {
+                    smallest = left + 1;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
 
-        return res;
-    }
+        private void swap(int i, int j) {
+            int a = heap[i];
+            heap[i] = heap[j];
+            heap[j] = a;
+            position[heap[i]] = i;
+            position[heap[j]] = j;
+        }
 
-    /**
-     * individual of the population with solution s
-     * and fitness value
-     */
-    private static class Individual implements Comparable<Individual> {
-        String s;
-        int fitness;
+        private boolean contains(long h) {
+            int mask = table.length - 1;
+            for (int i = (int) h & mask; table[i] != 0; i = (i + 1) & mask) {
+                if (table[i] == h) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
-        public Individual(String s, int fitness) {
-            this.s = s;
-            this.fitness = fitness;
+        private void add(long h) {
+            int mask = table.length - 1;
+            int i = (int) h & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = h;
         }
 
-        @Override
-        public int compareTo(Individual individual) {
-            return -(this.fitness - individual.fitness);
+        /**
+         * remove a hash by backward shift (linear probing)
+         */
+        private void remove(long h) {
+            int mask = table.length - 1;
+            int i = (int) h & mask;
+            while (table[i] != h) {
+                i = (i + 1) & mask;
+            }
+            table[i] = 0;
+            for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int home = (int) table[j] & mask;
+                /** move entry j into the gap at i unless its home lies cyclically in (i, j] **/
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    table[i] = table[j];
+                    table[j] = 0;
+                    i = j;
+                }
+            }
         }
     }
 }
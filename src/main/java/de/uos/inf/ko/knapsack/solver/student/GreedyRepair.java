@@ -0,0 +1,159 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.SortedInstance;
+
+/**
+ * Repair and local improvement of a solution by efficiency: the least efficient packed items are
+ * removed until the solution is feasible, then the most efficient unpacked items are added as long
+ * as they fit. The result is feasible and maximal (no further item fits).
+ *
+ * Works in place on primitive arrays and does not allocate, the efficiency order is taken from
+ * the {@link SortedInstance}. Value and weight of the last repaired solution are kept, so an
+ * operator must not be shared between threads. Used by the metaheuristics of this package.
+ *
+ * @author jtormoehlen
+ */
+final class GreedyRepair {
+
+    private final SortedInstance sorted;
+    private final int n;
+    private final long capacity;
+
+    /** value and weight of the last repaired solution **/
+    private long value;
+    private long weight;
+
+    GreedyRepair(SortedInstance sorted) {
+        this.sorted = sorted;
+        this.n = sorted.getSize();
+        this.capacity = sorted.getCapacity();
+    }
+
+    /**
+     * repair a bitset whose bit j stands for the item at level j
+     *
+     * @param x bitset (modified)
+     */
+    void repair(long[] x) {
+        value = 0;
+        weight = 0;
+        for (int i = 0; i < x.length; i++) {
+            for (long word = x[i]; word != 0; word &= word - 1) {
+                int j = (i << 6) + Long.numberOfTrailingZeros(word);
+                value += sorted.getValue(j);
+                weight += sorted.getWeight(j);
+            }
+        }
+
+        /** drop the least efficient items **/
+        for (int i = x.length - 1; i >= 0 && weight > capacity; i--) {
+            while (x[i] != 0 && weight > capacity) {
+                int bit = 63 - Long.numberOfLeadingZeros(x[i]);
+                x[i] &= ~(1L << bit);
+                int j = (i << 6) + bit;
+                value -= sorted.getValue(j);
+                weight -= sorted.getWeight(j);
+            }
+        }
+
+        /** add the most efficient items that fit **/
+        for (int i = 0; i < x.length; i++) {
+            int bits = Math.min(64, n - (i << 6));
+            long free = ~x[i] & (bits == 64 ? -1L : (1L << bits) - 1);
+            for (; free != 0; free &= free - 1) {
+                int bit = Long.numberOfTrailingZeros(free);
+                int j = (i << 6) + bit;
+                if (sorted.getWeight(j) <= capacity - weight) {
+                    x[i] |= 1L << bit;
+                    value += sorted.getValue(j);
+                    weight += sorted.getWeight(j);
+                }
+            }
+        }
+    }
+
+    /**
+     * repair a solution whose entry j stands for the item at level j
+     *
+     * @param x solution in efficiency order (modified)
+     */
+    void repair(boolean[] x) {
+        value = 0;
+        weight = 0;
+        for (int j = 0; j < n; j++) {
+            if (x[j]) {
+                value += sorted.getValue(j);
+                weight += sorted.getWeight(j);
+            }
+        }
+
+        /** drop the least efficient items **/
+        for (int j = n - 1; j >= 0 && weight > capacity; j--) {
+            if (x[j]) {
+                x[j] = false;
+                value -= sorted.getValue(j);
+                weight -= sorted.getWeight(j);
+            }
+        }
+
+        /** add the most efficient items that fit **/
+        for (int j = 0; j < n; j++) {
+            if (!x[j] && sorted.getWeight(j) <= capacity - weight) {
+                x[j] = true;
+                value += sorted.getValue(j);
+                weight += sorted.getWeight(j);
+            }
+        }
+    }
+
+    /**
+     * repair a solution whose entry i is the quantity (0 or 1)
+     * of item i of the instance
+     *
+     * @param x solution (modified)
+     */
+    void repair(int[] x) {
+        value = 0;
+        weight = 0;
+        for (int j = 0; j < n; j++) {
+            if (x[sorted.getItem(j)] == 1) {
+                value += sorted.getValue(j);
+                weight += sorted.getWeight(j);
+            }
+        }
+
+        /** drop the least efficient items **/
+        for (int j = n - 1; j >= 0 && weight > capacity; j--) {
+            int item = sorted.getItem(j);
+            if (x[item] == 1) {
+                x[item] = 0;
+                value -= sorted.getValue(j);
+                weight -= sorted.getWeight(j);
+            }
+        }
+
+        /** add the most efficient items that fit **/
+        for (int j = 0; j < n; j++) {
+            int item = sorted.getItem(j);
+            if (x[item] == 0 && sorted.getWeight(j) <= capacity - weight) {
+                x[item] = 1;
+                value += sorted.getValue(j);
+                weight += sorted.getWeight(j);
+            }
+        }
+    }
+
+    /**
+     * @return value of the last repaired solution
+     */
+    long getValue() {
+        return value;
+    }
+
+    /**
+     * @return weight of the last repaired solution
+     */
+    long getWeight() {
+        return weight;
+    }
+}
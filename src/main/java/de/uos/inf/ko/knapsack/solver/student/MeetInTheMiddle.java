@@ -0,0 +1,168 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.Solution;
+import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.utils.Logger;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A meet-in-the-middle (Horowitz-Sahni) solver for the binary knapsack problem.
+ *
+ * The items are split into two halves. The subsets of each half are enumerated into primitive
+ * arrays sorted by weight, keeping only subsets that fit into the knapsack and are not dominated
+ * (i.e. no lighter subset has at least the same value); such a list holds at most
+ * min(2^(n/2), W + 1) entries. Both halves are enumerated in parallel and combined by a
+ * two-pointer sweep.
+ *
+ * @author jtormoehlen
+ */
+public class MeetInTheMiddle implements SolverInterface<Solution> {
+
+    /**
+     * maximal number of items (a subset of each half is stored as long bit mask)
+     */
+    public static final int MAX_ITEMS = 126;
+
+    @Override
+    public Solution solve(Instance instance) {
+        int n = instance.getSize();
+        if (n > MAX_ITEMS) {
+            throw new IllegalArgumentException("Meet-in-the-middle is limited to " + MAX_ITEMS + " items: " + n);
+        }
+
+        int[] v = instance.getValueArray();
+        int[] w = instance.getWeightArray();
+        long capacity = instance.getCapacity();
+        int h = n / 2;
+
+        /** enumerate both halves in parallel **/
+        CompletableFuture<Subsets> leftFuture = CompletableFuture.supplyAsync(() -> new Subsets(v, w, 0, h, capacity));
+        Subsets right = new Subsets(v, w, h, n, capacity);
+        Subsets left = leftFuture.join();
+
+        Logger.println("MITM: " + left.size + " + " + right.size + " non-dominated subsets");
+
+        /** two-pointer sweep: left by increasing, right by decreasing weight **/
+        long bestValue = -1;
+        long bestLeft = 0;
+        long bestRight = 0;
+        int r = right.size - 1;
+        for (int l = 0; l < left.size; l++) {
+            while (r >= 0 && left.weight[l] + right.weight[r] > capacity) {
+                r--;
+            }
+            if (r < 0) {
+                break;
+            }
+
+            long value = left.value[l] + right.value[r];
+            if (value > bestValue) {
+                bestValue = value;
+                bestLeft = left.mask[l];
+                bestRight = right.mask[r];
+            }
+        }
+
+        /** put best result in solution **/
+        Solution solution = new Solution(instance);
+        for (int i = 0; i < h; i++) {
+            if ((bestLeft & (1L << i)) != 0) {
+                solution.setInt(i, 1);
+            }
+        }
+        for (int i = h; i < n; i++) {
+            if ((bestRight & (1L << (i - h))) != 0) {
+                solution.setInt(i, 1);
+            }
+        }
+
+        return solution;
+    }
+
+    @Override
+    public String getName() {
+        return "MITM(s)";
+    }
+
+    /**
+     * non-dominated subsets of the items [from, to) that fit into
+     * the knapsack, sorted by increasing weight and value
+     */
+    private static class Subsets {
+        long[] weight;
+        long[] value;
+        long[] mask;
+        int size;
+
+        Subsets(int[] v, int[] w, int from, int to, long capacity) {
+            weight = new long[] {0};
+            value = new long[] {0};
+            mask = new long[] {0};
+            size = 1;
+
+            long[] nextWeight = new long[0];
+            long[] nextValue = new long[0];
+            long[] nextMask = new long[0];
+
+            for (int i = from; i < to; i++) {
+                long wi = w[i];
+                long vi = v[i];
+                long bit = 1L << (i - from);
+
+                if (nextWeight.length < 2 * size) {
+                    nextWeight = new long[2 * size];
+                    nextValue = new long[2 * size];
+                    nextMask = new long[2 * size];
+                }
+
+                /** merge the list with its copy including item i **/
+                int a = 0;
+                int b = 0;
+                int count = 0;
+                long lastValue = -1;
+                while (a < size || (b < size && weight[b] + wi <= capacity)) {
+                    boolean without = b >= size || weight[b] + wi > capacity
+                            || (a < size && (weight[a] < weight[b] + wi
+                            || (weight[a] == weight[b] + wi && value[a] >= value[b] + vi)));
+                    long nw;
+                    long nv;
+                    long nm;
+                    if (without) {
+                        nw = weight[a];
+                        nv = value[a];
+                        nm = mask[a];
+                        a++;
+                    } else {
+                        nw = weight[b] + wi;
+                        nv = value[b] + vi;
+                        nm = mask[b] | bit;
+                        b++;
+                    }
+
+                    /** drop dominated subsets **/
+                    if (nv > lastValue) {
+                        lastValue = nv;
+                        nextWeight[count] = nw;
+                        nextValue[count] = nv;
+                        nextMask[count] = nm;
+                        count++;
+                    }
+                }
+
+                /** swap buffers **/
+                long[] tmp = weight;
+                weight = nextWeight;
+                nextWeight = tmp;
+                tmp = value;
+                value = nextValue;
+                nextValue = tmp;
+                tmp = mask;
+                mask = nextMask;
+                nextMask = tmp;
+                size = count;
+            }
+        }
+    }
+}
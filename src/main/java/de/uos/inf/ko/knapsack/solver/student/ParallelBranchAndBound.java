@@ -0,0 +1,150 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.Solution;
+import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.utils.Logger;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A parallel depth-first branch-and-bound algorithm for the binary knapsack problem.
+ *
+ * The upper levels of the search tree are split into subtrees that are executed as tasks on a
+ * work-stealing {@link ForkJoinPool}; every subtree is then searched sequentially by
+ * {@link DepthFirstSearch}. All workers prune against the same incumbent value.
+ *
+ * @author jtormoehlen
+ */
+public class ParallelBranchAndBound implements SolverInterface<Solution> {
+
+    /** subtrees per worker thread **/
+    private static final int TASKS_PER_THREAD = 16;
+
+    private final int parallelism;
+
+    public ParallelBranchAndBound() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of worker threads
+     */
+    public ParallelBranchAndBound(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public Solution solve(Instance instance) {
+        DepthFirstSearch search = new DepthFirstSearch(instance);
+        SharedIncumbent incumbent = new SharedIncumbent(search.n);
+
+        /** split the first levels of the tree into about TASKS_PER_THREAD subtrees per thread **/
+        int splitDepth = 0;
+        while ((1L << splitDepth) < (long) parallelism * TASKS_PER_THREAD && splitDepth < search.n) {
+            splitDepth++;
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long nodes;
+        try {
+            nodes = pool.invoke(new Subtree(search, incumbent, splitDepth, 0, new boolean[search.n], 0, 0));
+        } finally {
+            pool.shutdown();
+        }
+
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        Logger.println("BB-par: " + nodes + " nodes, " + (long) (nodes / seconds) + " nodes/s on " + parallelism + " threads");
+
+        return new Solution(instance, search.toArray(incumbent.best));
+    }
+
+    @Override
+    public String getName() {
+        return "BB-par(s)";
+    }
+
+    /**
+     * incumbent shared by all workers: the value is read lock-free,
+     * improvements are written under the lock
+     */
+    private static class SharedIncumbent implements DepthFirstSearch.Incumbent {
+        final AtomicLong value = new AtomicLong(-1);
+        final boolean[] best;
+
+        SharedIncumbent(int n) {
+            best = new boolean[n];
+        }
+
+        @Override
+        public long value() {
+            return value.get();
+        }
+
+        @Override
+        public synchronized void offer(long candidate, boolean[] x) {
+            if (candidate > value.get()) {
+                System.arraycopy(x, 0, best, 0, x.length);
+                value.set(candidate);
+            }
+        }
+    }
+
+    /**
+     * subtree below level j with fixed decisions for the items in
+     * front of j; splits into two subtrees until splitDepth is reached
+     */
+    private static class Subtree extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        final DepthFirstSearch search;
+        final SharedIncumbent incumbent;
+        final int splitDepth;
+        final int j;
+        final boolean[] x;
+        final long value;
+        final long weight;
+
+        Subtree(DepthFirstSearch search, SharedIncumbent incumbent, int splitDepth,
+                int j, boolean[] x, long value, long weight) {
+            this.search = search;
+            this.incumbent = incumbent;
+            this.splitDepth = splitDepth;
+            this.j = j;
+            this.x = x;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        @Override
+        protected Long compute() {
+            if (j >= splitDepth) {
+                return search.explore(j, x, value, weight, incumbent);
+            }
+
+            if (value + search.sorted.getUpperBound(j, search.capacity - weight) <= incumbent.value()) {
+                return 1L;
+            }
+
+            /** branch on item j: without it and, if it fits, with it **/
+            Subtree without = new Subtree(search, incumbent, splitDepth, j + 1, x.clone(), value, weight);
+            if (search.sorted.getWeight(j) > search.capacity - weight) {
+                return 1 + without.compute();
+            }
+
+            boolean[] y = x.clone();
+            y[j] = true;
+            Subtree with = new Subtree(search, incumbent, splitDepth, j + 1, y,
+                    value + search.sorted.getValue(j), weight + search.sorted.getWeight(j));
+            without.fork();
+            long nodes = 1 + with.compute();
+            return nodes + without.join();
+        }
+    }
+}
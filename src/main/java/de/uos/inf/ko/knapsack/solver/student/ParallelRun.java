@@ -0,0 +1,128 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel run of the workers (islands, chains or walks) of a stochastic solver, each in its own
+ * thread.
+ *
+ * In a synchronous run the workers meet at a barrier after every batch; the last one to arrive
+ * executes {@link #synchronize()} while the others wait, so workers only see each other at fixed
+ * points and a seeded run does not depend on thread timing. In an asynchronous run the workers
+ * never wait for each other, they exchange solutions through thread-safe structures whenever they
+ * get there and only share the stop flag.
+ *
+ * If a worker fails, the run is stopped and the barrier is broken, so no worker waits for the
+ * failed one; {@link #run()} rethrows the first failure.
+ *
+ * @author jtormoehlen
+ */
+abstract class ParallelRun {
+
+    final int workers;
+
+    /** barrier of a synchronous run (null: asynchronous) **/
+    final CyclicBarrier barrier;
+
+    volatile boolean stop;
+
+    /** first failure of a worker (null: none) **/
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * @param workers     number of workers
+     * @param synchronous meet at a barrier after every batch
+     */
+    ParallelRun(int workers, boolean synchronous) {
+        this.workers = workers;
+        this.barrier = synchronous ? new CyclicBarrier(workers, () -> {
+            if (failure.get() == null) {
+                synchronize();
+            }
+        }) : null;
+    }
+
+    /**
+     * executed by the thread of worker i until the run is stopped
+     *
+     * @param i worker
+     */
+    abstract void work(int i) throws InterruptedException, BrokenBarrierException;
+
+    /**
+     * executed by the last worker arriving at the barrier of a
+     * synchronous run
+     */
+    void synchronize() {
+    }
+
+    /**
+     * start all workers and wait until they are done
+     *
+     * @throws RuntimeException the first failure of a worker (checked
+     *                          exceptions wrapped in an IllegalStateException)
+     */
+    void run() {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+            for (int i = 0; i < workers; i++) {
+                final int worker = i;
+                futures[i] = CompletableFuture.runAsync(() -> guard(worker), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e != null) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * run worker i and record its failure
+     */
+    private void guard(int i) {
+        try {
+            work(i);
+        } catch (BrokenBarrierException e) {
+            /** another worker failed and broke the barrier, its failure is rethrown **/
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+            stop = true;
+            if (barrier != null) {
+                breakBarrier();
+            }
+        }
+    }
+
+    /**
+     * arrive at the barrier without waiting: if other workers are
+     * still busy, the timeout breaks the barrier, so they do not
+     * wait for this worker when they arrive; if all others already
+     * wait, the barrier trips (the barrier action is skipped after
+     * a failure) and they see the stop flag
+     */
+    private void breakBarrier() {
+        try {
+            barrier.await(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+            /** the barrier is broken **/
+        }
+    }
+}
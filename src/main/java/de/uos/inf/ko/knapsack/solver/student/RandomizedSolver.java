@@ -0,0 +1,65 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Solution;
+import de.uos.inf.ko.knapsack.SolverInterface;
+
+import java.util.SplittableRandom;
+
+/**
+ * Common configuration of the stochastic solvers of this package: the seed of the random number
+ * generator and a bound on the number of iterations of every worker (island, chain or walk; see
+ * the solver for what an iteration is).
+ *
+ * A run splits one random stream per worker off a single generator in a fixed order. If the
+ * iterations are bounded, the workers only exchange solutions at fixed iteration boundaries, so a
+ * seeded run is repeatable for the same configuration, including the number of workers, as long
+ * as it ends by the iteration bound or by reaching the Dantzig bound. Otherwise the workers run
+ * asynchronously and exchange solutions whenever they get there; such a run ends by its
+ * wall-clock budget and is not repeatable, since the number of iterations done until then varies.
+ *
+ * @author jtormoehlen
+ */
+public abstract class RandomizedSolver implements SolverInterface<Solution> {
+
+    /** seed of the random number generator (null: random seed) **/
+    private Long seed;
+
+    /** iterations of every worker **/
+    private long maxIterations = Long.MAX_VALUE;
+
+    /**
+     * fix the seed of the random number generator
+     *
+     * @param seed seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * bound the number of iterations of every worker of a run; the
+     * wall-clock budget still applies
+     *
+     * @param maxIterations iterations of every worker (default: unbounded)
+     */
+    public void setMaxIterations(long maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("number of iterations must be positive: " + maxIterations);
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * @return iterations of every worker (Long.MAX_VALUE: unbounded)
+     */
+    public long getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * @return new random number generator for one run
+     */
+    protected SplittableRandom newRandom() {
+        return seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+    }
+}
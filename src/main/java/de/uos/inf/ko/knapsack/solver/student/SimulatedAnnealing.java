@@ -2,19 +2,80 @@ package de.uos.inf.ko.knapsack.solver.student;
 
 import de.uos.inf.ko.knapsack.Instance;
 import de.uos.inf.ko.knapsack.Solution;
-import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.knapsack.SortedInstance;
+import de.uos.inf.ko.utils.Logger;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
 
 /**
  * A solver for the binary knapsack problem based on simulated annealing.
  *
+ * {@link #solve(Instance)} runs several annealing chains in parallel within a wall-clock budget,
+ * either as independent restarts or as parallel tempering (replica exchange). The temperature of
+ * the restarts follows a {@link CoolingSchedule} over the budget, or over the iterations if they
+ * are bounded. An iteration (see {@link #setMaxIterations(long)}) is one move of a chain.
+ *
  * @author jtormoehlen
  */
-public class SimulatedAnnealing implements SolverInterface<Solution> {
+public class SimulatedAnnealing extends RandomizedSolver {
+
+    /**
+     * How the chains of {@link #solve(Instance, long)} cooperate
+     */
+    public enum Mode {
+        /** independent chains, each cooled down over the whole budget **/
+        MULTI_START,
+        /** chains at fixed temperatures that exchange their states (replica exchange) **/
+        PARALLEL_TEMPERING
+    }
+
+    /** default wall-clock budget in milliseconds **/
+    public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+    /** lowest temperature, a loss of value 1 is accepted with probability e^-10 **/
+    private static final double COLD_TEMPERATURE = .1d;
+
+    /** steps of a chain between two checks of the clock (and two exchanges or temperature updates) **/
+    private static final int BATCH = 1 << 12;
+
+    private final Mode mode;
+    private final int chainCount;
+    private final long budgetMillis;
+    private final CoolingSchedule schedule;
+
+    public SimulatedAnnealing() {
+        this(Mode.MULTI_START, Runtime.getRuntime().availableProcessors(), DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param mode         cooperation of the chains
+     * @param chains       number of chains (each runs in its own thread)
+     * @param budgetMillis wall-clock budget of {@link #solve(Instance)} in milliseconds
+     */
+    public SimulatedAnnealing(Mode mode, int chains, long budgetMillis) {
+        this(mode, chains, budgetMillis, CoolingSchedule.geometric());
+    }
+
+    /**
+     * @param mode         cooperation of the chains
+     * @param chains       number of chains (each runs in its own thread)
+     * @param budgetMillis wall-clock budget of {@link #solve(Instance)} in milliseconds
+     * @param schedule     cooling schedule of the chains in mode MULTI_START
+     */
+    public SimulatedAnnealing(Mode mode, int chains, long budgetMillis, CoolingSchedule schedule) {
+        if (chains < 1) {
+            throw new IllegalArgumentException("number of chains must be positive: " + chains);
+        }
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("budget must not be negative: " + budgetMillis);
+        }
+        this.mode = mode;
+        this.chainCount = chains;
+        this.budgetMillis = budgetMillis;
+        this.schedule = schedule;
+    }
 
     /**
      * solves knapsack problem via simulated annealing
@@ -25,178 +86,495 @@ public class SimulatedAnnealing implements SolverInterface<Solution> {
      * max loop counter and starting solution
      *
      * @param instance instance to solve
-     * @param start    starting solution i.e. random
+     * @param start    starting solution i.e. random (repaired if infeasible)
      * @param t_0      starting temperature
      * @param c_max    max loop count
      * @param alpha    temperature decreasing coefficient
      * @return solution
      */
     public Solution solve(Instance instance, int[] start, int t_0, int c_max, double alpha) {
-
-        int n = instance.getSize();
-        int t = t_0;                                    //start temp
-        int c = 0;                                      //loop count
-        int[] x = Arrays.copyOf(start, n);              //start solution
-        int currW = 0;                                  //current weight
-        int[] bestX = Arrays.copyOf(x, n);              //best solution
+        GreedyRepair repair = new GreedyRepair(new SortedInstance(instance));
+        int[] x = start.clone();
+        repair.repair(x);
+        Chain chain = new Chain(instance, x, newRandom());
+        double t = t_0;                                 //start temp
 
         /** count to max **/
-        while (c <= c_max) {
-            /** generate random index **/
-            Random random = new Random();
-            int j = random.nextInt(n - 1);
+        long time = System.nanoTime();
+        for (int c = 0; c <= c_max; c++) {
+            chain.step(t);
 
-            /** swap the corresponding bit **/
-            int[] y = Arrays.copyOf(x, n);
-            y[j] = 1 - x[j];
+            /** update temp **/
+            t *= alpha;
+        }
+        report(c_max + 1L, System.nanoTime() - time);
 
-            /** check for left capacity in knapsack **/
-            if (!((y[j] == 1) && (currW + instance.getWeight(j) > instance.getCapacity()))) {
+        /** return best result, filled up greedily **/
+        int[] best = chain.getBest();
+        repair.repair(best);
+        return new Solution(instance, best);
+    }
 
-                /** move to solution y... **/
-                if (y[j] == 1) {
+    @Override
+    public Solution solve(Instance instance) {
+        return solve(instance, budgetMillis);
+    }
 
-                    x = Arrays.copyOf(y, n);
-                    currW += instance.getWeight(j);
+    /**
+     * solves knapsack problem with several annealing chains in
+     * parallel until the time budget or the iterations are used
+     * up or the best solution reaches the Dantzig bound
+     *
+     * @param instance instance to solve
+     * @param millis   wall-clock budget in milliseconds
+     * @return best solution of all chains
+     */
+    public Solution solve(Instance instance, long millis) {
+        return solveUntil(instance, System.nanoTime() + millis * 1000000L);
+    }
 
-                    /** update best solution if possible **/
-                    Solution tmpSol = arrayToSolution(x, instance);
-                    Solution bestSol = arrayToSolution(bestX, instance);
-                    if (tmpSol.getValue().intValue() > bestSol.getValue().intValue()) {
-                        bestX = Arrays.copyOf(x, n);
-                    }
+    /**
+     * solves knapsack problem with several annealing chains in
+     * parallel until a deadline, until the iterations are used up
+     * or until the best solution reaches the Dantzig bound
+     *
+     * @param instance instance to solve
+     * @param deadline deadline in terms of {@link System#nanoTime()}
+     * @return best solution of all chains
+     */
+    public Solution solveUntil(Instance instance, long deadline) {
+        int n = instance.getSize();
+        long start = System.nanoTime();
+        SortedInstance sorted = new SortedInstance(instance);
+        GreedyRepair repair = new GreedyRepair(sorted);
+        long bound = sorted.getUpperBound(0, instance.getCapacity());
+
+        /** hottest temperature: any single item may be removed with probability >= 1/e **/
+        double hot = 1;
+        for (int j = 0; j < n; j++) {
+            hot = Math.max(hot, instance.getValue(j));
+        }
+        double cold = Math.min(COLD_TEMPERATURE, hot);
+
+        /** independent chains with their own random streams, started from repaired random solutions **/
+        SplittableRandom random = newRandom();
+        Chain[] chains = new Chain[chainCount];
+        for (int i = 0; i < chains.length; i++) {
+            SplittableRandom chainRandom = random.split();
+            int[] x = generateRandomStartSolution(n, instance, chainRandom);
+            repair.repair(x);
+            chains[i] = new Chain(instance, x, chainRandom);
+        }
 
-                } else {
+        Run run = mode == Mode.PARALLEL_TEMPERING
+                ? new Tempering(chains, hot, cold, deadline, bound, getMaxIterations(), random.split())
+                : new MultiStart(chains, schedule, hot, cold, start, deadline, bound, getMaxIterations());
+        run.run();
+        report(Arrays.stream(run.steps).sum(), System.nanoTime() - start);
+
+        /** return best result, filled up greedily **/
+        Chain best = chains[0];
+        for (Chain chain : chains) {
+            if (chain.getBestValue() > best.getBestValue()) {
+                best = chain;
+            }
+        }
+        int[] x = best.getBest();
+        repair.repair(x);
+        return new Solution(instance, x);
+    }
 
-                    /** ...or move to y with probability exp((value(y)-values(x))/T) **/
-                    double r = random.nextDouble();
+    /**
+     * generate a random start solution: visit the items in
+     * random order and pack every item that still fits
+     *
+     * @param n      array size
+     * @param random random number generator
+     * @return start solution array
+     */
+    private static int[] generateRandomStartSolution(int n, Instance instance, SplittableRandom random) {
+        int[] x = new int[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
 
-                    if (r < Math.exp(-instance.getValue(j)) / (double) t) {
-                        x = Arrays.copyOf(y, n);
-                        currW -= instance.getWeight(j);
-                    }
-                }
+        long residual = instance.getCapacity();
+        for (int i = n - 1; i >= 0; i--) {
+            int k = random.nextInt(i + 1);
+            int j = order[k];
+            order[k] = order[i];
+            order[i] = j;
+            if (instance.getWeight(j) <= residual && random.nextInt(2) == 1) {
+                x[j] = 1;
+                residual -= instance.getWeight(j);
             }
-
-            /** update counter and temp **/
-            c++;
-            t *= alpha;
         }
 
-        /** return best result **/
-        Solution optimal = arrayToSolution(bestX, instance);
-        return optimal;
+        return x;
+    }
+
+    /**
+     * log the number of performed iterations per second
+     *
+     * @param iterations number of iterations
+     * @param nanos      elapsed time
+     */
+    private static void report(long iterations, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1e9;
+        Logger.println("SA: " + iterations + " iterations, " + (long) (iterations / seconds) + " iterations/s");
     }
 
     @Override
-    public Solution solve(Instance instance) {
-        if (true) {
-            throw new UnsupportedOperationException();
+    public String getName() {
+        return "SA(s)";
+    }
+
+    /**
+     * parallel run of several chains in batches of equal length;
+     * after each batch the chains may interact and the run is stopped
+     * at the deadline, after the maximal number of iterations or as
+     * soon as a chain reaches the bound; in a synchronous run this
+     * happens while all chains wait at the barrier, so chains only see
+     * each other at these fixed points and a run does not depend on
+     * thread timing, in an asynchronous run every chain checks the
+     * stop conditions on its own
+     */
+    private abstract static class Run extends ParallelRun {
+        final Chain[] chains;
+        final long deadline;
+        final long bound;
+        final long maxIterations;
+
+        /** iterations of every chain so far in a synchronous run **/
+        long iterations;
+
+        /** iterations of each chain **/
+        final long[] steps;
+
+        Run(Chain[] chains, long deadline, long bound, long maxIterations, boolean synchronous) {
+            super(chains.length, synchronous);
+            this.chains = chains;
+            this.deadline = deadline;
+            this.bound = bound;
+            this.maxIterations = maxIterations;
+            this.steps = new long[chains.length];
         }
 
-        int t_0 = 1000;
+        @Override
+        void work(int i) throws InterruptedException, BrokenBarrierException {
+            while (!stop) {
+                int count = (int) Math.min(BATCH, maxIterations - iterations);
+                batch(i, count);
+                steps[i] += count;
+
+                if (barrier != null) {
+                    barrier.await();
+                } else if (chains[i].getBestValue() >= bound || System.nanoTime() >= deadline) {
+                    stop = true;
+                }
+            }
+        }
 
-        int c_max = 1000000;
-        double alpha = .95d;
+        /**
+         * perform the moves of chain i in one batch
+         *
+         * @param i     chain
+         * @param steps number of moves
+         */
+        abstract void batch(int i, int steps);
+
+        /**
+         * interaction of the chains after a batch
+         */
+        void exchange() {
+        }
 
-        int[] start = generateRandomStartSolution(instance.getSize(), instance);
+        @Override
+        void synchronize() {
+            iterations += Math.min(BATCH, maxIterations - iterations);
+            exchange();
 
-        Solution best = new Solution(instance);
-        String statistics = "";
+            boolean optimal = false;
+            for (Chain chain : chains) {
+                optimal |= chain.getBestValue() >= bound;
+            }
+            stop = optimal || iterations >= maxIterations || System.nanoTime() >= deadline;
+        }
+    }
 
-        for (int i = 0; i < 10; i++) {
+    /**
+     * independent chains cooled from the hot to the cold temperature
+     * by a schedule over the budget, or over the iterations if they
+     * are bounded (then the run is synchronous)
+     */
+    private static final class MultiStart extends Run {
+        final CoolingSchedule schedule;
+        final double hot;
+        final double cold;
+        final long start;
+
+        /** temperature of each chain and its progress (iterations or time) at its last improvement **/
+        final double[] temperature;
+        final double[] improved;
+        final long[] bestValue;
+
+        MultiStart(Chain[] chains, CoolingSchedule schedule, double hot, double cold,
+                   long start, long deadline, long bound, long maxIterations) {
+            super(chains, deadline, bound, maxIterations, maxIterations < Long.MAX_VALUE);
+            this.schedule = schedule;
+            this.hot = hot;
+            this.cold = cold;
+            this.start = start;
+            temperature = new double[chains.length];
+            improved = new double[chains.length];
+            bestValue = new long[chains.length];
+            for (int i = 0; i < chains.length; i++) {
+                temperature[i] = hot;
+                bestValue[i] = chains[i].getBestValue();
+            }
+        }
 
-            /** alternate between alpha=5% and alpha=1% **/
-            if (alpha == .95d) {
-                alpha = .99d;
-            } else {
-                alpha = .95d;
+        @Override
+        void batch(int i, int steps) {
+            Chain chain = chains[i];
+            double t = temperature[i];
+            for (int c = 0; c < steps; c++) {
+                chain.step(t);
             }
 
-            /** half counter every second loop count **/
-            if (i % 2 == 0) {
-                c_max /= 10;
+            /** elapsed share of the iterations, or of the budget if they are unbounded **/
+            double progress = maxIterations < Long.MAX_VALUE
+                    ? (iterations + steps) / (double) maxIterations
+                    : (System.nanoTime() - start) / (double) Math.max(deadline - start, 1);
+            progress = Math.min(progress, 1);
+            if (chain.getBestValue() > bestValue[i]) {
+                bestValue[i] = chain.getBestValue();
+                improved[i] = progress;
             }
 
-            /** solve with current parameter setup **/
-            Solution next = solve(instance, start, t_0, c_max, alpha);
+            temperature[i] = schedule.next(hot, cold, t, progress, progress - improved[i]);
+        }
+    }
 
-            if (next.getValue() > best.getValue()) {
-                best = new Solution(next);
+    /**
+     * chains at a geometric ladder of fixed temperatures; after each
+     * batch neighbouring temperatures are exchanged between their
+     * chains with probability min(1, exp((v_j - v_i)(1/T_i - 1/T_j)))
+     * (always a synchronous run)
+     */
+    private static final class Tempering extends Run {
+        /** temperature of each chain **/
+        final double[] temperature;
+        /** chain on each rung of the ladder, hottest first **/
+        final int[] rung;
+        final SplittableRandom random;
+
+        Tempering(Chain[] chains, double hot, double cold, long deadline, long bound, long maxIterations,
+                  SplittableRandom random) {
+            super(chains, deadline, bound, maxIterations, true);
+            this.random = random;
+            int k = chains.length;
+            temperature = new double[k];
+            rung = new int[k];
+            for (int i = 0; i < k; i++) {
+                temperature[i] = k == 1 ? cold : hot * Math.pow(cold / hot, i / (double) (k - 1));
+                rung[i] = i;
             }
-
-            /** build some statistics **/
-            statistics = extendStatistics(statistics, t_0, c_max, alpha, next);
         }
 
-        /** print statistics to console **/
-        System.out.println(statistics);
+        @Override
+        void batch(int i, int steps) {
+            Chain chain = chains[i];
+            double t = temperature[i];
+            for (int c = 0; c < steps; c++) {
+                chain.step(t);
+            }
+        }
 
-        /** return best result **/
-        return best;
+        @Override
+        void exchange() {
+            for (int r = 0; r + 1 < rung.length; r++) {
+                int i = rung[r];
+                int j = rung[r + 1];
+                double x = (chains[j].getValue() - chains[i].getValue())
+                        * (1 / temperature[i] - 1 / temperature[j]);
+                if (x >= 0 || random.nextDouble() < Math.exp(x)) {
+                    double t = temperature[i];
+                    temperature[i] = temperature[j];
+                    temperature[j] = t;
+                    rung[r] = j;
+                    rung[r + 1] = i;
+                }
+            }
+        }
     }
 
     /**
-     * append statistics about parameters and
-     * corresponding values to a string
-     *
-     * @param s        string
-     * @param t_0      start temperature
-     * @param c_max    max count
-     * @param alpha    alpha coefficient for temperature fall
-     * @param solution current solution
-     * @return extended string
+     * a single annealing chain on one instance; the current solution
+     * is kept as a partition of the items into packed and unpacked
+     * ones together with its value and weight, so every move is
+     * evaluated and applied in O(1) without allocations
      */
-    private static String extendStatistics(String s, int t_0, int c_max, double alpha, Solution solution) {
-        String res = "";
+    static final class Chain {
+        private final int[] v;
+        private final int[] w;
+        private final long capacity;
+        private final SplittableRandom random;
+
+        /** items[0, packed) are in the knapsack, items[packed, n) are not; position[j] is the index of j in items **/
+        private final int[] items;
+        private final int[] position;
+        private int packed;
+        private long value;
+        private long weight;
+
+        /** best solution, copied lazily when the chain leaves it **/
+        private final int[] best;
+        private long bestValue;
+        private boolean bestPending;
+
+        /**
+         * @param instance instance to solve
+         * @param start    feasible start solution
+         * @param random   random number generator of this chain
+         */
+        Chain(Instance instance, int[] start, SplittableRandom random) {
+            int n = instance.getSize();
+            this.v = instance.getValueArray();
+            this.w = instance.getWeightArray();
+            this.capacity = instance.getCapacity();
+            this.random = random;
+            this.items = new int[n];
+            this.position = new int[n];
+            this.best = new int[n];
+
+            int unpacked = n;
+            for (int j = 0; j < n; j++) {
+                if (start[j] == 1) {
+                    place(j, packed++);
+                    value += v[j];
+                    weight += w[j];
+                } else {
+                    place(j, --unpacked);
+                }
+            }
+            if (weight > capacity) {
+                throw new IllegalArgumentException("start solution is infeasible");
+            }
 
-        if (s == "") {
-            s += "size\t\tt_0\t\tc_max\t\talpha\t\tvalue\n";
+            bestValue = value;
+            bestPending = true;
         }
 
-        res += s + solution.getInstance().getSize() + "\t\t" + t_0 + "\t\t" + c_max + "\t\t" + alpha + "\t\t" + solution.getValue() + "\n";
+        /**
+         * perform one move at a temperature: a random item is added
+         * if it fits, otherwise swapped against a random packed item;
+         * a packed item is removed; moves that lose value are accepted
+         * with probability exp(delta / temperature)
+         *
+         * @param temperature current temperature
+         */
+        void step(double temperature) {
+            int n = items.length;
+            if (n == 0) {
+                return;
+            }
 
-        return res;
-    }
+            int j = random.nextInt(n);
+            if (position[j] >= packed) {
+                if (weight + w[j] <= capacity) {
+                    /** add item j **/
+                    if (v[j] < 0 && !accept(v[j], temperature)) {
+                        return;
+                    }
+                    add(j);
+                } else if (packed > 0) {
+                    /** swap item j against a packed item k **/
+                    int k = items[random.nextInt(packed)];
+                    if (weight - w[k] + w[j] > capacity) {
+                        return;
+                    }
+                    long delta = (long) v[j] - v[k];
+                    if (delta < 0 && !accept(delta, temperature)) {
+                        return;
+                    }
+                    remove(k);
+                    add(j);
+                }
+            } else {
+                /** remove item j **/
+                if (v[j] > 0 && !accept(-v[j], temperature)) {
+                    return;
+                }
+                remove(j);
+            }
 
-    /**
-     * generate a random start solution
-     *
-     * @param n array size
-     * @return start solution array
-     */
-    private static int[] generateRandomStartSolution(int n, Instance instance) {
-        int[] x = new int[n];
-        Random random = new Random();
+            if (value > bestValue) {
+                bestValue = value;
+                bestPending = true;
+            }
+        }
+
+        /**
+         * metropolis criterion for a move with delta < 0
+         */
+        private boolean accept(long delta, double temperature) {
+            return temperature > 0 && random.nextDouble() < Math.exp(delta / temperature);
+        }
+
+        private void add(int j) {
+            saveBest();
+            swap(position[j], packed++);
+            value += v[j];
+            weight += w[j];
+        }
+
+        private void remove(int j) {
+            saveBest();
+            swap(position[j], --packed);
+            value -= v[j];
+            weight -= w[j];
+        }
 
-        do {
-            for (int i = 0; i < n; i++) {
-                x[i] = random.nextInt(2);
+        /**
+         * copy the current solution to the best one before leaving it
+         */
+        private void saveBest() {
+            if (bestPending && value == bestValue) {
+                Arrays.fill(best, 0);
+                for (int i = 0; i < packed; i++) {
+                    best[items[i]] = 1;
+                }
+                bestPending = false;
             }
-        } while (!arrayToSolution(x, instance).isFeasible());
+        }
 
-        return x;
-    }
+        private void swap(int a, int b) {
+            int i = items[a];
+            place(items[b], a);
+            place(i, b);
+        }
 
-    /**
-     * copy an array to a solution object
-     *
-     * @param x        array to copy
-     * @param instance related instance to array
-     * @return solution
-     */
-    private static Solution arrayToSolution(int[] x, Instance instance) {
-        Solution solution = new Solution(instance);
+        private void place(int j, int index) {
+            items[index] = j;
+            position[j] = index;
+        }
 
-        for (int i = 0; i < x.length; i++) {
-            solution.set(i, x[i]);
+        long getValue() {
+            return value;
         }
 
-        return solution;
-    }
+        long getBestValue() {
+            return bestValue;
+        }
 
-    @Override
-    public String getName() {
-        return "SA(s)";
+        /**
+         * @return best solution found by the chain
+         */
+        int[] getBest() {
+            saveBest();
+            return best.clone();
+        }
     }
 }
@@ -2,40 +2,117 @@ package de.uos.inf.ko.knapsack.solver.student;
 
 import de.uos.inf.ko.knapsack.Instance;
 import de.uos.inf.ko.knapsack.Solution;
-import de.uos.inf.ko.knapsack.SolverInterface;
+import de.uos.inf.ko.knapsack.SortedInstance;
+import de.uos.inf.ko.utils.Logger;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Solver for the binary knapsack problem based on tabu search.
  *
+ * The search works on the items in order of decreasing efficiency. Only a candidate list of
+ * items around the break item is ever changed: more efficient items stay packed, less efficient
+ * ones stay unpacked. The tabu list is an array of iteration stamps, so a tabu lookup is O(1),
+ * and value and weight of the current solution are kept as running totals.
+ *
+ * {@link #solve(Instance)} runs a portfolio of walks with different tenures and start solutions
+ * concurrently, both walks that stay feasible and walks that may leave the feasible region. They
+ * share a lock-free elite pool and restart from it by path relinking. An iteration (see
+ * {@link #setMaxIterations(long)}) is one move of a walk; if they are bounded, the pool is only
+ * accessed between two batches of iterations, while all walks wait at a barrier.
+ *
  * @author jtormoehlen
  */
-public class TabuSearch implements SolverInterface<Solution> {
+public class TabuSearch extends RandomizedSolver {
+
+    /** default number of candidate items around the break item **/
+    public static final int DEFAULT_CANDIDATES = 256;
+
+    /** default wall-clock budget in milliseconds **/
+    public static final long DEFAULT_BUDGET_MILLIS = 1000;
+
+    /** tenure of the first walks, doubled for every further pair of walks (see {@link #tenure(int, int)}) **/
+    private static final int TENURE = 5;
+
+    /** number of elite solutions shared by the walks **/
+    private static final int ELITE_SIZE = 8;
+
+    /** iterations of a walk between two checks of the clock (and two accesses to the elite pool) **/
+    private static final int BATCH = 1 << 10;
+
+    /** iterations without improvement before a walk is restarted by path relinking **/
+    private static final int STAGNATION = 1 << 14;
+
+    private final int walkCount;
+    private final long budgetMillis;
+
+    public TabuSearch() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()), DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param walks        number of concurrent tabu walks (each runs in its own thread)
+     * @param budgetMillis wall-clock budget in milliseconds
+     */
+    public TabuSearch(int walks, long budgetMillis) {
+        if (walks < 1) {
+            throw new IllegalArgumentException("number of walks must be positive: " + walks);
+        }
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("budget must not be negative: " + budgetMillis);
+        }
+        this.walkCount = walks;
+        this.budgetMillis = budgetMillis;
+    }
 
     /**
+     * solves the knapsack problem with a portfolio of tabu walks
+     * running concurrently: walks with an even index only visit
+     * feasible solutions, walks with an odd index may also visit
+     * infeasible ones, and the tenure grows with the index; all
+     * walks share an elite pool of their best solutions and
+     * restart from it by path relinking when they stagnate; the
+     * search stops at the deadline, after the maximal number of
+     * iterations or as soon as a solution reaches the Dantzig bound
+     *
      * @param instance The given knapsack instance
      * @return solution
      */
     @Override
     public Solution solve(Instance instance) {
-        if (true) {
-            throw new UnsupportedOperationException();
+        SortedInstance sorted = new SortedInstance(instance);
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1000000L;
+        long bound = sorted.getUpperBound(0, instance.getCapacity());
+
+        SplittableRandom random = newRandom();
+        int candidates = Math.min(sorted.getSize(), DEFAULT_CANDIDATES);
+        Walk[] walks = new Walk[walkCount];
+        for (int i = 0; i < walks.length; i++) {
+            SplittableRandom walkRandom = random.split();
+            walks[i] = new Walk(sorted, DEFAULT_CANDIDATES, tenure(i, candidates), i % 2 == 1, walkRandom);
+            walks[i].start(walks[i].randomStart(walkRandom));
         }
 
-        long t_0 = System.currentTimeMillis();
-        Solution timeSolution = solve(instance, 1, false);
-        long t_1 = System.currentTimeMillis();
-        Solution iterationSolution = solve(instance, 0, true);
-        long t_2 = System.currentTimeMillis();
-
-        printStatistics(timeSolution, t_1 - t_0, "feasible allowed");
-        printStatistics(iterationSolution, t_2 - t_1, "infeasible allowed");
+        ElitePool pool = new ElitePool(ELITE_SIZE);
+        new Portfolio(walks, pool, deadline, bound, getMaxIterations()).run();
 
-        return timeSolution.getValue() >= iterationSolution.getValue() ? timeSolution : iterationSolution;
+        long iterations = 0;
+        for (Walk walk : walks) {
+            iterations += walk.getIterations();
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        Logger.println("Tabu: " + walks.length + " walks, " + iterations + " iterations, "
+                + (long) (iterations / seconds) + " iterations/s");
+
+        /** return best result, filled up greedily (walks never pack items behind their candidates) **/
+        Elite best = pool.best();
+        boolean[] x = best != null ? best.x.clone() : walks[0].getBest();
+        new GreedyRepair(sorted).repair(x);
+        return walks[0].toSolution(x);
     }
 
     @Override
@@ -44,248 +121,479 @@ public class TabuSearch implements SolverInterface<Solution> {
     }
 
     /**
-     * solves the knapsack problem based on TabuSearch with
-     * given stopCriterion (specific runtime or iterations) and attribute
-     * (i.e. save whole solution x, save best/worst items,
-     * allow infeasible solutions);
-     * solution is found by constantly add the next most
-     * profitable item to the knapsack when possible (add that item
-     * to TabuList after) or remove the least profitable item from
-     * knapsack when possible (and add that item to tabuList after);
-     * in each iteration update the TabuList based on a cooldown
-     * parameter (i.e. number of iterations) that determines the
-     * duration the item remains in TabuList
+     * tenure of walk i: doubled for every further pair of walks as
+     * long as it is at most a quarter of the candidates, then it
+     * starts again at {@link #TENURE}; a walk draws its tenures from
+     * [tenure, 2 tenure), so at least half of its candidates are
+     * never tabu
      *
-     * @param instance      knapsack instance
-     * @param stopCriterion runtime or iterations {0,1}
-     * @param all           dont deny feasible solutions
-     * @return solution
+     * @param i          index of the walk
+     * @param candidates number of candidate items of the walk
+     * @return minimal number of iterations an item stays tabu
      */
-    private Solution solve(Instance instance, int stopCriterion, boolean all) {
-        if (false) {
-            throw new UnsupportedOperationException();
+    static int tenure(int i, int candidates) {
+        int max = Math.max(candidates / 4, 1);
+        int levels = 1;
+        while ((TENURE << levels) <= max) {
+            levels++;
         }
+        return Math.min(TENURE << (i / 2 % levels), max);
+    }
 
-        int[] s = generateRandomStartSolution(instance.getSize(), instance);
-        int[] sStar = Arrays.copyOf(s, s.length);
-        int cStar = new Solution(arrayToSolution(s, instance)).getValue();
-        List<Item> tabuList = new ArrayList<>();
-
-        /** parameters: cooldown, time interval in ms, maximal iterations **/
-        int duration = 5;
-        long timeInterval = 1000;
-        long maxIterations = 100000;
-
-        /** TabuSearch stop criterion: time or iterations **/
-        long c0, cMax;
-        if (stopCriterion == 0) {
-            c0 = System.currentTimeMillis();
-            cMax = c0 + timeInterval;
-        } else {
-            c0 = 0;
-            cMax = maxIterations;
+    /**
+     * concurrent walks in batches of equal length; after each batch
+     * a walk shares its improvements through the elite pool or, if
+     * it stagnates, is restarted from the pool by path relinking, and
+     * the search is stopped at the deadline, after the maximal number
+     * of iterations or at the Dantzig bound; with bounded iterations
+     * the pool is accessed for all walks at the barrier in walk order
+     * (the walks relink afterwards in their own threads), so a run
+     * does not depend on thread timing, otherwise every walk accesses
+     * the pool on its own
+     */
+    private static final class Portfolio extends ParallelRun {
+        final Walk[] walks;
+        final ElitePool pool;
+        final long deadline;
+        final long bound;
+        final long maxIterations;
+
+        /** best value of each walk at its last batch and iterations since its last improvement **/
+        final long[] bestValue;
+        final long[] stagnation;
+
+        /** guiding solution of each walk that is restarted after the barrier (or null) **/
+        final boolean[][] guide;
+
+        Portfolio(Walk[] walks, ElitePool pool, long deadline, long bound, long maxIterations) {
+            super(walks.length, maxIterations < Long.MAX_VALUE);
+            this.walks = walks;
+            this.pool = pool;
+            this.deadline = deadline;
+            this.bound = bound;
+            this.maxIterations = maxIterations;
+            this.bestValue = new long[walks.length];
+            this.stagnation = new long[walks.length];
+            this.guide = new boolean[walks.length][];
+            long best = -1;
+            for (int i = 0; i < walks.length; i++) {
+                bestValue[i] = walks[i].getBestValue();
+                pool.offer(bestValue[i], walks[i].getBest());
+                best = Math.max(best, bestValue[i]);
+            }
+            stop = best >= bound;
         }
 
-        /** main loop **/
-        while (c0 <= cMax) {
-            int added = add(s, tabuList, instance, all);
-            int cleared = clear(s, tabuList, instance);
-
-            /** try to add/clear most/least valuable item **/
-            if (added > -1) {
-                s[added] = 1;
-                tabuList.add(new Item(added, duration));
-            } else if (cleared > -1) {
-                s[cleared] = 0;
-                tabuList.add(new Item(cleared, duration));
-            }
+        @Override
+        void work(int i) throws InterruptedException, BrokenBarrierException {
+            Walk walk = walks[i];
+            while (!stop) {
+                long steps = Math.min(BATCH, maxIterations - walk.getIterations());
+                for (long k = 0; k < steps; k++) {
+                    walk.step();
+                }
 
-            /** update TabuList **/
-            updateList(tabuList);
+                if (barrier != null) {
+                    barrier.await();
+                } else {
+                    share(i);
+                    if (walk.getBestValue() >= bound || System.nanoTime() >= deadline) {
+                        stop = true;
+                    }
+                }
 
-            /** update best solution **/
-            Solution sTmp = new Solution(arrayToSolution(s, instance));
-            if ((sTmp.getValue() >= cStar) && sTmp.isFeasible()) {
-                sStar = Arrays.copyOf(s, s.length);
-                cStar = sTmp.getValue();
+                if (guide[i] != null) {
+                    walk.relink(guide[i]);
+                    guide[i] = null;
+                }
             }
+        }
 
-            if (stopCriterion == 0) {
-                c0 = System.currentTimeMillis();
-            } else {
-                c0++;
+        /**
+         * offer an improvement of walk i to the elite pool, or choose
+         * a guiding solution from the pool if the walk stagnates
+         */
+        private void share(int i) {
+            Walk walk = walks[i];
+            if (walk.getBestValue() > bestValue[i]) {
+                bestValue[i] = walk.getBestValue();
+                pool.offer(bestValue[i], walk.getBest());
+                stagnation[i] = 0;
+            } else if ((stagnation[i] += BATCH) >= STAGNATION) {
+                guide[i] = pool.random(walk.random).x;
+                stagnation[i] = 0;
             }
         }
 
-        /** return result **/
-        Solution solution = new Solution(arrayToSolution(sStar, instance));
-        return solution;
+        @Override
+        void synchronize() {
+            long best = -1;
+            for (int i = 0; i < walks.length; i++) {
+                share(i);
+                best = Math.max(best, walks[i].getBestValue());
+            }
+
+            stop = best >= bound || walks[0].getIterations() >= maxIterations || System.nanoTime() >= deadline;
+        }
     }
 
     /**
-     * search the most valuable of all unselected items
-     * that are not tabu and return it
-     *
-     * @param x        solution vector
-     * @param tabuList TabuList
-     * @param instance Instance
-     * @return result
+     * elite solution in efficiency order (immutable)
      */
-    private static int add(int[] x, List<Item> tabuList, Instance instance, boolean all) {
-        int bestItem = -1;
-        int bestValue = 0;
-        int bestWeight = instance.getCapacity() - new Solution(arrayToSolution(x, instance)).getWeight();
-
-        for (int i = 0; i < x.length; i++) {
-            if ((x[i] == 0) && (!isTabu(tabuList, i))) {
-                if ((instance.getValue(i) > bestValue) && (instance.getWeight(i) <= bestWeight || all)) {
-                    bestItem = i;
-                    bestValue = instance.getValue(i);
-                    bestWeight = instance.getWeight(i);
-                } else if ((instance.getValue(i) == bestValue) && (instance.getWeight(i) < bestWeight || all)) {
-                    bestItem = i;
-                    bestValue = instance.getValue(i);
-                    bestWeight = instance.getWeight(i);
-                }
-            }
-        }
+    private static final class Elite {
+        final long value;
+        final boolean[] x;
 
-        return bestItem;
+        Elite(long value, boolean[] x) {
+            this.value = value;
+            this.x = x;
+        }
     }
 
     /**
-     * search the least valuable of all selected items
-     * that are not tabu and return it
-     *
-     * @param x        solution vector
-     * @param tabuList TabuList
-     * @param instance Instance
-     * @return result
+     * lock-free pool of the best solutions of all walks; a new
+     * solution replaces the worst one by compare-and-set
      */
-    private static int clear(int[] x, List<Item> tabuList, Instance instance) {
-        int worstItem = -1;
-        int worstValue = Integer.MAX_VALUE;
-        int worstWeight = 0;
-
-        for (int i = 0; i < x.length; i++) {
-            if ((x[i] == 1) && (!isTabu(tabuList, i))) {
-                if (instance.getValue(i) < worstValue) {
-                    worstItem = i;
-                    worstValue = instance.getValue(i);
-                    worstWeight = instance.getWeight(i);
-                } else if ((instance.getValue(i) == worstValue) && (instance.getWeight(i) > worstWeight)) {
-                    worstItem = i;
-                    worstValue = instance.getValue(i);
-                    worstWeight = instance.getWeight(i);
+    private static final class ElitePool {
+        final AtomicReferenceArray<Elite> slots;
+
+        ElitePool(int size) {
+            slots = new AtomicReferenceArray<>(size);
+        }
+
+        /**
+         * @param value value of the solution
+         * @param x     solution in efficiency order (not copied)
+         */
+        void offer(long value, boolean[] x) {
+            Elite elite = new Elite(value, x);
+            while (true) {
+                int worst = -1;
+                Elite worstElite = null;
+                for (int i = 0; i < slots.length(); i++) {
+                    Elite e = slots.get(i);
+                    if (e != null && e.value == value && Arrays.equals(e.x, x)) {
+                        return;
+                    }
+                    if (worst < 0 || e == null || (worstElite != null && e.value < worstElite.value)) {
+                        worst = i;
+                        worstElite = e;
+                        if (e == null) {
+                            break;
+                        }
+                    }
+                }
+                if (worstElite != null && worstElite.value >= value) {
+                    return;
+                }
+                if (slots.compareAndSet(worst, worstElite, elite)) {
+                    return;
                 }
             }
         }
 
-        return worstItem;
+        /**
+         * @return random elite solution
+         */
+        Elite random(SplittableRandom random) {
+            int size = 0;
+            while (size < slots.length() && slots.get(size) != null) {
+                size++;
+            }
+            return slots.get(random.nextInt(Math.max(size, 1)));
+        }
+
+        /**
+         * @return best elite solution or null
+         */
+        Elite best() {
+            Elite best = null;
+            for (int i = 0; i < slots.length(); i++) {
+                Elite e = slots.get(i);
+                if (e != null && (best == null || e.value > best.value)) {
+                    best = e;
+                }
+            }
+            return best;
+        }
     }
 
     /**
-     * updates the TabuList:
-     * delete items with duration zero and
-     * reduce duration of all items by one
-     *
-     * @param tabuList
-     * @return
+     * a tabu walk over the candidate items (levels lo,...,hi-1 in
+     * efficiency order); in each iteration the most efficient
+     * non-tabu unpacked candidate that fits (or any, if infeasible
+     * solutions are allowed) is added, otherwise the least efficient
+     * non-tabu packed candidate is removed; the changed item is tabu
+     * for the next tenure (randomized) iterations unless a move
+     * leads to a new best solution (aspiration)
      */
-    private static List<Item> updateList(List<Item> tabuList) {
-        List<Item> result = tabuList;
+    static final class Walk {
+        final SortedInstance sorted;
+        final int n;
+        final long capacity;
+        final int lo;
+        final int hi;
+        private final int tenure;
+        private final boolean infeasible;
+        final SplittableRandom random;
+        private final GreedyRepair repair;
+
+        /** current solution in efficiency order **/
+        private final boolean[] x;
+        private long value;
+        private long weight;
+
+        /** item j is tabu while iteration < tabuUntil[j] **/
+        private final long[] tabuUntil;
+        private long iteration;
+
+        /** best feasible solution **/
+        private final boolean[] best;
+        private long bestValue;
+
+        /**
+         * @param sorted     instance in efficiency order
+         * @param candidates number of candidate items around the break item
+         * @param tenure     minimal number of iterations an item stays tabu
+         * @param infeasible allow infeasible solutions
+         * @param random     random number generator of this walk
+         */
+        Walk(SortedInstance sorted, int candidates, int tenure, boolean infeasible, SplittableRandom random) {
+            this.sorted = sorted;
+            this.n = sorted.getSize();
+            this.capacity = sorted.getCapacity();
+            int b = sorted.getBreakLevel();
+            this.lo = Math.max(0, Math.min(b - candidates / 2, n - candidates));
+            this.hi = Math.min(n, lo + Math.max(candidates, 1));
+            this.tenure = Math.max(tenure, 1);
+            this.infeasible = infeasible;
+            this.random = random;
+            this.repair = new GreedyRepair(sorted);
+            this.x = new boolean[n];
+            this.best = new boolean[n];
+            this.tabuUntil = new long[n];
+            this.bestValue = -1;
+            for (int j = 0; j < lo; j++) {
+                best[j] = true;
+            }
+        }
 
-        for (int i = 0; i < result.size(); i++) {
-            if (result.get(i).duration == 0) {
-                result.remove(i);
+        /**
+         * a random feasible solution: the candidates are visited in
+         * random order and every second one that fits is packed, then
+         * the solution is filled up greedily
+         *
+         * @param random random number generator
+         * @return solution in efficiency order
+         */
+        boolean[] randomStart(SplittableRandom random) {
+            boolean[] y = new boolean[n];
+            for (int j = 0; j < lo; j++) {
+                y[j] = true;
             }
 
-            result.get(i).duration--;
+            int[] order = new int[hi - lo];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = lo + i;
+            }
+            long residual = capacity - sorted.getPrefixWeight(lo);
+            for (int i = order.length - 1; i >= 0; i--) {
+                int k = random.nextInt(i + 1);
+                int j = order[k];
+                order[k] = order[i];
+                order[i] = j;
+                if (sorted.getWeight(j) <= residual && random.nextInt(2) == 1) {
+                    y[j] = true;
+                    residual -= sorted.getWeight(j);
+                }
+            }
+            repair.repair(y);
+            return y;
         }
 
-        return result;
-    }
+        /**
+         * continue the walk from a solution; the items in front
+         * of the candidates are packed, the ones behind are not
+         *
+         * @param y solution in efficiency order
+         */
+        void start(boolean[] y) {
+            value = sorted.getPrefixValue(lo);
+            weight = sorted.getPrefixWeight(lo);
+            for (int j = 0; j < n; j++) {
+                x[j] = j < lo || (j < hi && y[j]);
+            }
+            for (int j = lo; j < hi; j++) {
+                if (x[j]) {
+                    value += sorted.getValue(j);
+                    weight += sorted.getWeight(j);
+                }
+            }
+            improve();
+        }
 
-    /**
-     * returns if the tabuList contains an item
-     *
-     * @param tabuList TabuList
-     * @param item     Item
-     * @return result as boolean
-     */
-    private static boolean isTabu(List<Item> tabuList, int item) {
-        for (Item iterator : tabuList) {
-            if (iterator.identity == item) {
-                return true;
+        /**
+         * perform one move
+         */
+        void step() {
+            iteration++;
+            int j = weight <= capacity ? addCandidate() : -1;
+            if (j < 0) {
+                j = removeCandidate();
+            }
+            if (j < 0) {
+                return;
             }
+
+            flip(j);
+            tabuUntil[j] = iteration + tenure + random.nextInt(tenure);
+            improve();
         }
 
-        return false;
-    }
+        /**
+         * @return most efficient unpacked candidate that may be added, or -1
+         */
+        private int addCandidate() {
+            long residual = capacity - weight;
+            for (int j = lo; j < hi; j++) {
+                if (x[j]) {
+                    continue;
+                }
+                boolean fits = sorted.getWeight(j) <= residual;
+                if (!fits && !infeasible) {
+                    continue;
+                }
+                if (tabuUntil[j] <= iteration || (fits && value + sorted.getValue(j) > bestValue)) {
+                    return j;
+                }
+            }
+            return -1;
+        }
 
-    private static void printStatistics(Solution solution, long time, String description) {
-        String s = "";
+        /**
+         * @return least efficient packed candidate that may be removed, or -1
+         */
+        private int removeCandidate() {
+            for (int j = hi - 1; j >= lo; j--) {
+                if (!x[j]) {
+                    continue;
+                }
+                if (tabuUntil[j] <= iteration
+                        || (weight - sorted.getWeight(j) <= capacity && value - sorted.getValue(j) > bestValue)) {
+                    return j;
+                }
+            }
+            return -1;
+        }
 
-        s += "TabuSearch knapsack: " + solution.getInstance().getSize() + "\n";
-        s += description + "\n";
-        s += "tot_value\tdelta_time\n";
-        s += solution.getValue() + "\t\t" + time + "ms\n";
+        /**
+         * path relinking: move from the current solution towards
+         * a guiding solution by flipping one differing candidate at
+         * a time (the most valuable feasible result first, otherwise
+         * the lightest one) and continue the walk from the best
+         * feasible solution strictly between both ends, if any,
+         * after repairing and filling it up greedily
+         *
+         * @param guide guiding solution in efficiency order
+         */
+        void relink(boolean[] guide) {
+            int[] path = new int[hi - lo];
+            int length = 0;
+            int bestStep = -1;
+            long bestStepValue = Long.MIN_VALUE;
+            while (true) {
+                int next = -1;
+                boolean nextFeasible = false;
+                long nextValue = 0;
+                long nextWeight = 0;
+                for (int j = lo; j < hi; j++) {
+                    if (x[j] == guide[j]) {
+                        continue;
+                    }
+                    int sign = x[j] ? -1 : 1;
+                    long v = value + sign * sorted.getValue(j);
+                    long w = weight + sign * sorted.getWeight(j);
+                    boolean feasible = w <= capacity;
+                    if (next < 0 || (feasible && (!nextFeasible || v > nextValue))
+                            || (!feasible && !nextFeasible && w < nextWeight)) {
+                        next = j;
+                        nextFeasible = feasible;
+                        nextValue = v;
+                        nextWeight = w;
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
 
-        System.out.println(s);
-    }
+                flip(next);
+                path[length++] = next;
+                improve();
+                if (nextFeasible && nextValue > bestStepValue && !Arrays.equals(x, guide)) {
+                    bestStep = length;
+                    bestStepValue = nextValue;
+                }
+            }
 
-    /**
-     * generate a random start solution
-     * bound elem {1,2}: 1 for zeros and
-     * 2 for random elements between zero and one
-     * attention: may result in high computing time!
-     *
-     * @param n array size
-     * @return start solution array
-     */
-    private static int[] generateRandomStartSolution(int n, Instance instance) {
-        int bound = 1;
-        int[] x = new int[n];
-        Random random = new Random();
-
-        do {
-            for (int i = 0; i < n; i++) {
-                x[i] = random.nextInt(bound);
+            /** go back to the best intermediate solution (or the middle of the path, if feasible) **/
+            int keep = bestStep >= 0 ? bestStep : length / 2;
+            while (length > keep || (length > 0 && weight > capacity && !infeasible)) {
+                flip(path[--length]);
             }
-        } while (!arrayToSolution(x, instance).isFeasible());
 
-        return x;
-    }
+            /** local improvement **/
+            repair.repair(x);
+            start(x);
+        }
 
-    /**
-     * copy an array to a solution object
-     *
-     * @param x        array to copy
-     * @param instance related instance to array
-     * @return solution
-     */
-    private static Solution arrayToSolution(int[] x, Instance instance) {
-        Solution solution = new Solution(instance);
+        private void flip(int j) {
+            x[j] = !x[j];
+            int sign = x[j] ? 1 : -1;
+            value += sign * sorted.getValue(j);
+            weight += sign * sorted.getWeight(j);
+        }
 
-        for (int i = 0; i < x.length; i++) {
-            solution.set(i, x[i]);
+        /**
+         * copy the current solution to the best one if it improves
+         */
+        private void improve() {
+            if (weight <= capacity && value > bestValue) {
+                bestValue = value;
+                System.arraycopy(x, lo, best, lo, hi - lo);
+            }
         }
 
-        return solution;
-    }
+        long getIterations() {
+            return iteration;
+        }
 
-    /**
-     * Item Object with Identity: i elem {0,...,n-1}
-     * and duration (number of iterations
-     * item remains in TabuList)
-     */
-    private class Item {
-        int identity;
-        int duration;
+        long getValue() {
+            return value;
+        }
 
-        public Item(int identity, int duration) {
-            this.identity = identity;
-            this.duration = duration;
+        long getBestValue() {
+            return bestValue;
+        }
+
+        /**
+         * @return best solution of the walk in efficiency order
+         */
+        boolean[] getBest() {
+            return best.clone();
+        }
+
+        /**
+         * @param y solution in efficiency order
+         * @return solution of the instance
+         */
+        Solution toSolution(boolean[] y) {
+            int[] result = new int[n];
+            for (int j = 0; j < n; j++) {
+                if (y[j]) {
+                    result[sorted.getItem(j)] = 1;
+                }
+            }
+            return new Solution(sorted.getInstance(), result);
         }
     }
 }
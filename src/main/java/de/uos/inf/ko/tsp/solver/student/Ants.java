@@ -1,6 +1,9 @@
 package de.uos.inf.ko.tsp.solver.student;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import de.uos.inf.ko.tsp.Instance;
 
@@ -10,6 +13,111 @@ import de.uos.inf.ko.tsp.Instance;
  * @author jtormoehlen
  */
 public class Ants {
+
+    /**
+     * Pheromone update rule
+     */
+    public enum PheromoneUpdate {
+        /** every ant deposits 1 / L_k on its tour **/
+        ANT_SYSTEM,
+        /** MAX-MIN Ant System: only the iteration best or the best ant deposits, pheromones are bounded **/
+        MAX_MIN
+    }
+
+    /** evaporation factor, influence of pheromones (alpha) and of distances (beta) **/
+    private static final double EVAPORATION = 0.5d;
+    private static final double ALPHA = 0.5;
+    private static final double BETA = 2.0;
+
+    /** number of ants and of iterations **/
+    private static final int ANTS = 1000;
+    private static final int ITERATIONS = 11;
+
+    /** length of the candidate lists (nearest cities of a city) **/
+    private static final int CANDIDATES = 20;
+
+    /** smallest distance used for the heuristic value, so that cities at
+     * the same location get a large but finite eta **/
+    private static final double MIN_DISTANCE = 1e-9;
+
+    /** MAX-MIN: probability of the best tour at convergence (sets tau_min) and
+     * interval of the iterations in which the best instead of the iteration best ant deposits **/
+    private static final double P_BEST = 0.05;
+    private static final int BEST_INTERVAL = 5;
+
+    /** default probability q_0 of the greedy choice of the next city **/
+    private static final double DEFAULT_EXPLOITATION = 0.9;
+
+    private final PheromoneUpdate update;
+    private final int threads;
+
+    /** seed of the random number generator (null: random seed) **/
+    private Long seed;
+
+    /** probability q_0 of the greedy choice of the next city (ACS) **/
+    private double exploitation = DEFAULT_EXPLOITATION;
+
+    /** improve the iteration best tour by local search **/
+    private boolean localSearch;
+
+    public Ants() {
+        this(PheromoneUpdate.ANT_SYSTEM);
+    }
+
+    /**
+     * @param update pheromone update rule
+     */
+    public Ants(PheromoneUpdate update) {
+        this(update, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param update  pheromone update rule
+     * @param threads number of threads that build the tours of the ants
+     */
+    public Ants(PheromoneUpdate update, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be positive: " + threads);
+        }
+        this.update = update;
+        this.threads = threads;
+    }
+
+    /**
+     * fix the seed of the random number generator, so that tours
+     * can be reproduced
+     *
+     * @param seed seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * pseudo-random-proportional rule of the Ant Colony System: with
+     * probability q_0 an ant moves to the city with the highest
+     * probability, otherwise it draws the next city (default: q_0 = 0.9;
+     * q_0 = 0 is the random proportional rule of the Ant System)
+     *
+     * @param q0 probability of the greedy choice in [0, 1]
+     */
+    public void setExploitation(double q0) {
+        if (!(q0 >= 0 && q0 <= 1)) {
+            throw new IllegalArgumentException("q0 must be in [0, 1]: " + q0);
+        }
+        this.exploitation = q0;
+    }
+
+    /**
+     * improve the iteration best tour with 2-opt and Or-opt
+     * ({@link LocalSearch}) before the pheromone update
+     *
+     * @param enabled apply local search
+     */
+    public void setLocalSearch(boolean enabled) {
+        this.localSearch = enabled;
+    }
+
     /**
      * Solves a given TSP instance with the Ants algorithm.
      *
@@ -17,228 +125,395 @@ public class Ants {
      * @return TSP tour described as a list of cities
      */
     public List<Integer> solve(Instance instance) {
-        /** initiate parameters: evaporation factor, alpha, beta and number of ants **/
-        final double evaporation = 0.5d;
-        final double alpha = 0.5;
-        final double beta = 1.0;
-        final int m = 1000;
-        /** tsp instance size and pheromone "field" (zero at start) **/
         int n = instance.getNumCities();
-        double[][] pheromones = new double[n][n];
-
-        int loopCount = 0;
         List<Integer> optimal = new ArrayList<>();
-        double optimalLength = Double.POSITIVE_INFINITY;
-
-        while (loopCount <= 10) {
-            /** initiate all ants **/
-            Ant[] ants = new Ant[m];
-            List<Double> tourLenghts = new ArrayList<>();
-
-            for (int k = 0; k < m; k++) {
-                /** set ant on random start location **/
-                ants[k] = new Ant();
-                Random random = new Random();
-                int start = random.nextInt(n);
-
-                /** generate list of unvisited cities for ant k **/
-                List<Integer> notVisitedV = generateSetV(n, start);
-                ants[k].tour.add(new Integer(start));
-
-                /** for all (random) unvisited cities... **/
-                for (int lambda = 1; lambda < n; lambda++) {
-                    double prob = 0;
-                    int j = -1;
-
-                    for (int i = 0; i < notVisitedV.size(); i++) {
-                        double p_ij = calcProbability(pheromones, instance, alpha, beta,
-                                                        ants[k].getLast(), notVisitedV.get(i), notVisitedV);
-
-                        if (p_ij >= prob) {
-                            prob = p_ij;
-                            j = notVisitedV.get(i);
-                        }
-                    }
+        if (n == 0) {
+            return optimal;
+        }
+
+        SplittableRandom random = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+        Colony colony = new Colony(instance, CANDIDATES, update, exploitation);
+        LocalSearch search = localSearch ? new LocalSearch(instance.getDistances(), colony.candidates) : null;
+
+        /** ants (and their arrays) are reused in every iteration **/
+        Ant[] ants = new Ant[ANTS];
+        for (int k = 0; k < ANTS; k++) {
+            ants[k] = new Ant(n, CANDIDATES);
+        }
+
+        /** every thread builds the tours of a fixed block of ants with its own
+         * random number generator, so a run only depends on seed and thread count **/
+        int blocks = Math.min(threads, ANTS);
+        SplittableRandom[] randoms = new SplittableRandom[blocks];
+        for (int t = 0; t < blocks; t++) {
+            randoms[t] = random.split();
+        }
 
-                    /** ...visit next city with highest probability for ant k **/
-                    if (j != -1) {
-                        ants[k].tour.add(new Integer(j));
-                        notVisitedV.remove(new Integer(j));
+        int[] best = null;
+        double bestLength = Double.POSITIVE_INFINITY;
+
+        ExecutorService pool = blocks > 1 ? Executors.newFixedThreadPool(blocks) : null;
+        try {
+            for (int loopCount = 0; loopCount < ITERATIONS; loopCount++) {
+                construct(colony, ants, randoms, pool);
+
+                /** merge in the order of the ants **/
+                Ant iterationBest = ants[0];
+                for (Ant ant : ants) {
+                    if (ant.length < iterationBest.length) {
+                        iterationBest = ant;
                     }
                 }
-            }
 
-            /** for all ants calculate tourlength and delta values;
-             * update optimal solution if possible **/
-            for (int k = 0; k < m; k++) {
-                ants[k].calcTourLength(instance);
-                tourLenghts.add(new Double(ants[k].tourLength));
+                if (search != null) {
+                    search.improve(iterationBest.tour);
+                    iterationBest.length = colony.length(iterationBest.tour);
+                }
 
-                if (ants[k].tourLength < optimalLength) {
-                    optimalLength = ants[k].tourLength;
-                    optimal = new ArrayList<>(ants[k].tour);
+                if (best == null || iterationBest.length < bestLength) {
+                    bestLength = iterationBest.length;
+                    best = iterationBest.tour.clone();
                 }
 
-                ants[k].calcDelta(instance);
+                /** calculate new pheromone values **/
+                if (update == PheromoneUpdate.ANT_SYSTEM) {
+                    colony.update(ants);
+                } else if (loopCount % BEST_INTERVAL == BEST_INTERVAL - 1) {
+                    colony.update(best, bestLength, bestLength);
+                } else {
+                    colony.update(iterationBest.tour, iterationBest.length, bestLength);
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
             }
-
-            /** calculate new pheromone values **/
-            pheromones = calcPheromones(pheromones, evaporation, ants, instance);
-            loopCount++;
-
-            //System.out.println(Collections.min(tourLenghts) + "$");
         }
 
         /** print best result **/
-        if (instance.getNumCities() != 1) {
-            System.out.println("tsp " + instance.getNumCities() + " Tourlength: " + computeCost(instance, optimal));
+        if (n != 1) {
+            System.out.println("tsp " + n + " Tourlength: " + bestLength);
         }
 
         /** return best result **/
+        for (int city : best) {
+            optimal.add(city);
+        }
         return optimal;
     }
 
     /**
-     * calculate probability for one ant
-     * to choose a path from i to j using
-     * formula (3.1)
+     * set every ant on a random start location and let it build its tour;
+     * block t of the ants is built by one task with random number generator t
      *
-     * @param pheromones current pheromones on all paths
-     * @param instance tsp instance
-     * @param alpha influence of pheromones
-     * @param beta influence of greedy solution
-     * @param i from city
-     * @param j to city
-     * @param notVisitedV list of unvisited cities
-     * @return probability
+     * @param colony  colony
+     * @param ants    ants
+     * @param randoms random number generators of the blocks
+     * @param pool    thread pool (null: build all tours in the calling thread)
      */
-    private double calcProbability(double[][] pheromones, Instance instance,
-                                   double alpha, double beta, int i, int j, List<Integer> notVisitedV) {
-        double eta_ij = 1 / instance.getDistance(i, j);
-
-        double counter = Math.pow(pheromones[i][j], alpha) * Math.pow(eta_ij, beta);
-        double denominator = 0;
-
-        for (Integer l : notVisitedV) {
-            double eta_il = 1 / instance.getDistance(i, l.intValue());
-            denominator += Math.pow(pheromones[i][l.intValue()], alpha) * Math.pow(eta_il, beta);
+    private static void construct(Colony colony, Ant[] ants, SplittableRandom[] randoms, ExecutorService pool) {
+        int blocks = randoms.length;
+        if (pool == null) {
+            for (Ant ant : ants) {
+                colony.construct(ant, randoms[0].nextInt(colony.n), randoms[0]);
+            }
+            return;
         }
 
-        if (denominator != 0) {
-            return counter / denominator;
-        } else {
-            return 0;
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[blocks];
+        for (int t = 0; t < blocks; t++) {
+            int from = t * ants.length / blocks;
+            int to = (t + 1) * ants.length / blocks;
+            SplittableRandom random = randoms[t];
+            workers[t] = CompletableFuture.runAsync(() -> {
+                for (int k = from; k < to; k++) {
+                    colony.construct(ants[k], random.nextInt(colony.n), random);
+                }
+            }, pool);
         }
+        CompletableFuture.allOf(workers).join();
     }
 
     /**
-     * overwrite pheromone values for all path between all cities
-     *
-     * @param pheromones current pheromones on all paths
-     * @param evaporation pheromones' disappearing factor
-     * @param ants array of ants
-     * @param instance tsp instance
-     * @return 2d array of pheromone values (for each path between all cities)
+     * Pheromones and everything derived from the instance for one solve:
+     * the heuristic values eta^beta (eta = 1 / distance) are computed once,
+     * the choice info tau^alpha * eta^beta is refreshed only after a
+     * pheromone update, so choosing the next city needs no Math.pow and
+     * no normalisation. Ants only look at the candidate list of their
+     * current city and fall back to all cities once every candidate is
+     * visited. Pheromone updates touch only the paths of the depositing
+     * tours besides one pass of evaporation, so an iteration needs O(n^2)
+     * memory and time independent of the number of ants. Tours can be
+     * built concurrently, the colony is only read while ants build tours.
      */
-    private double[][] calcPheromones(double[][] pheromones, double evaporation, Ant[] ants, Instance instance) {
-        for (int i = 0; i < instance.getNumCities(); i++) {
-            for (int j = 0; j < instance.getNumCities(); j++) {
-                double delta = 0;
-
-                for (int k = 0; k < ants.length; k++) {
-                    delta += ants[k].delta[i][j];
+    private static final class Colony {
+        private final int n;
+        private final double[][] distances;
+
+        /** eta^beta for every path **/
+        private final double[][] heuristic;
+        private final double[][] pheromones;
+
+        /** tau^alpha * eta^beta for every path **/
+        private final double[][] choice;
+
+        /** nearest cities of every city, closest first **/
+        private final int[][] candidates;
+
+        /** probability of the greedy choice **/
+        private final double q0;
+
+        Colony(Instance instance, int k, PheromoneUpdate update, double q0) {
+            this.q0 = q0;
+            n = instance.getNumCities();
+            distances = instance.getDistances();
+            heuristic = new double[n][n];
+            pheromones = new double[n][n];
+            choice = new double[n][n];
+            candidates = LocalSearch.neighbourLists(distances, k);
+
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i != j) {
+                        heuristic[i][j] = Math.pow(1 / Math.max(distances[i][j], MIN_DISTANCE), BETA);
+                    }
                 }
+            }
 
-                pheromones[i][j] = ((1 - evaporation) * pheromones[i][j]) + delta;
+            /** start with tau_0 = m / C_nn on every path (C_nn: nearest neighbour tour),
+             * MAX-MIN starts at the estimate 1 / (rho C_nn) of tau_max **/
+            double nearest = nearestNeighbourLength();
+            double tau0 = nearest > 0 && nearest < Double.POSITIVE_INFINITY
+                    ? (update == PheromoneUpdate.ANT_SYSTEM ? ANTS : 1 / EVAPORATION) / nearest : 1;
+            for (int i = 0; i < n; i++) {
+                Arrays.fill(pheromones[i], tau0);
             }
+            updateChoice();
         }
 
-        return pheromones;
-    }
+        /**
+         * let an ant build a complete tour from the given start city
+         *
+         * @param ant    ant (tour, visited cities and length are overwritten)
+         * @param start  start city
+         * @param random random number generator of the calling thread
+         */
+        void construct(Ant ant, int start, SplittableRandom random) {
+            Arrays.fill(ant.visited, false);
+            ant.tour[0] = start;
+            ant.visited[start] = true;
+
+            for (int lambda = 1; lambda < n; lambda++) {
+                int i = ant.tour[lambda - 1];
+                int j = q0 > 0 && (q0 == 1 || random.nextDouble() < q0)
+                        ? greedy(i, ant.visited) : draw(i, ant.visited, ant.wheel, random);
+                ant.tour[lambda] = j;
+                ant.visited[j] = true;
+            }
 
-    /**
-     * generate list of unvisited cities (excluding start location)
-     *
-     * @param size tsp instance size
-     * @param start city to start
-     * @return list of unvisited cities
-     */
-    private List<Integer> generateSetV(int size, int start) {
-        List<Integer> setV = new ArrayList<>();
+            ant.length = length(ant.tour);
+        }
 
-        for (int index = 0; index < size; index++) {
-            if (index != start) {
-                setV.add(new Integer(index));
+        /**
+         * draw the next city of an ant at city i with probability (3.1)
+         * among the unvisited candidates: the prefix sums of their choice
+         * info form a roulette wheel (visited candidates get no share),
+         * the drawn city is found by binary search; if every candidate
+         * is visited or the sum is not finite, the ant moves greedily
+         *
+         * @param i       current city
+         * @param visited visited cities
+         * @param wheel   buffer for the prefix sums
+         * @param random  random number generator
+         * @return next city
+         */
+        private int draw(int i, boolean[] visited, double[] wheel, SplittableRandom random) {
+            double[] row = choice[i];
+            int[] list = candidates[i];
+            double sum = 0;
+
+            for (int c = 0; c < list.length; c++) {
+                if (!visited[list[c]]) {
+                    sum += row[list[c]];
+                }
+                wheel[c] = sum;
             }
-        }
 
-        return setV;
-    }
+            if (!(sum > 0 && sum < Double.POSITIVE_INFINITY)) {
+                return greedy(i, visited);
+            }
 
-    /**
-     * Computes the length of a given tour. Note that this method does not check whether every city is
-     * visited.
-     *
-     * @param instance TSP instance
-     * @param tour     List of cities
-     * @return total distance of the tour
-     */
-    private double computeCost(Instance instance, List<Integer> tour) {
-        double result = 0;
+            /** smallest c with wheel[c] > u **/
+            double u = random.nextDouble() * sum;
+            int low = 0;
+            int high = list.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (wheel[mid] > u) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
 
-        for (int v : tour) {
-            int w = tour.get((tour.indexOf(v) + 1) % tour.size());
-            result += instance.getDistance(v, w);
+            /** visited candidates have no share of the wheel; never return one, even on rounding errors **/
+            int j = list[low];
+            return visited[j] ? greedy(i, visited) : j;
         }
 
-        return result;
-    }
+        /**
+         * next city of an ant at city i: the unvisited city with the
+         * highest probability (3.1), i.e. the highest choice info
+         *
+         * @param i       current city
+         * @param visited visited cities
+         * @return next city
+         */
+        private int greedy(int i, boolean[] visited) {
+            double[] row = choice[i];
+            int j = -1;
+            double max = -1;
+
+            for (int l : candidates[i]) {
+                if (!visited[l] && row[l] > max) {
+                    max = row[l];
+                    j = l;
+                }
+            }
 
-    /**
-     * Ant with tsp tour including length and 2d array of delta values
-     */
-    private class Ant {
-        List<Integer> tour;
-        double tourLength;
-        double[][] delta;
+            if (j == -1) {
+                for (int l = 0; l < n; l++) {
+                    if (!visited[l] && row[l] > max) {
+                        max = row[l];
+                        j = l;
+                    }
+                }
+            }
 
-        public Ant() {
-            tour = new ArrayList<>();
+            return j;
         }
 
         /**
-         * get last visited city
+         * evaporate all pheromones and add the deposits 1 / L_k of all
+         * ants on the paths of their tours
          *
-         * @return last visited city
+         * @param ants ants with complete tours
          */
-        public int getLast() {
-            return tour.get(tour.size() - 1).intValue();
+        void update(Ant[] ants) {
+            evaporate();
+            for (Ant ant : ants) {
+                deposit(ant.tour, 1 / ant.length);
+            }
+            updateChoice();
         }
 
         /**
-         * calculate the current tour length and store to tourlength
-         * @param instance tsp instance
+         * MAX-MIN Ant System: evaporate all pheromones, add the deposit
+         * 1 / L of a single tour and bound all pheromones to
+         * [tau_min, tau_max] with tau_max = 1 / (rho L_best)
+         *
+         * @param tour       depositing tour (iteration best or best)
+         * @param length     length of the depositing tour
+         * @param bestLength length of the best tour so far
          */
-        public void calcTourLength(Instance instance) {
-            tourLength = computeCost(instance, tour);
+        void update(int[] tour, double length, double bestLength) {
+            evaporate();
+            deposit(tour, 1 / length);
+
+            double max = 1 / (EVAPORATION * bestLength);
+            double root = Math.pow(P_BEST, 1.0 / n);
+            double min = n > 2 ? Math.min(max, max * (1 - root) / ((n / 2.0 - 1) * root)) : max;
+            for (int i = 0; i < n; i++) {
+                double[] row = pheromones[i];
+                for (int j = 0; j < n; j++) {
+                    row[j] = Math.max(min, Math.min(max, row[j]));
+                }
+            }
+            updateChoice();
+        }
+
+        private void evaporate() {
+            for (int i = 0; i < n; i++) {
+                double[] row = pheromones[i];
+                for (int j = 0; j < n; j++) {
+                    row[j] *= 1 - EVAPORATION;
+                }
+            }
         }
 
         /**
-         * calculate 2d array of delta values (required for pheromones)
-         * @param instance tsp instance
+         * add a deposit on the paths of a tour (in both directions)
+         *
+         * @param tour    tour
+         * @param deposit pheromones per path
          */
-        public void calcDelta(Instance instance) {
-            delta = new double[instance.getNumCities()][instance.getNumCities()];
+        private void deposit(int[] tour, double deposit) {
+            for (int lambda = 0; lambda < n; lambda++) {
+                int i = tour[lambda];
+                int j = tour[(lambda + 1) % n];
+                pheromones[i][j] += deposit;
+                pheromones[j][i] += deposit;
+            }
+        }
 
-            for (int i = 0; i < tour.size(); i++) {
-                if (i != tour.size() - 1) {
-                    delta[tour.get(i).intValue()][tour.get(i + 1).intValue()] = 1 / tourLength;
-                    delta[tour.get(i + 1).intValue()][tour.get(i).intValue()] = 1 / tourLength;
-                } else {
-                    delta[tour.get(tour.size() - 1)][tour.get(0)] = 1 / tourLength;
-                    delta[tour.get(0)][tour.get(tour.size() - 1)] = 1 / tourLength;
+        private void updateChoice() {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    choice[i][j] = Math.pow(pheromones[i][j], ALPHA) * heuristic[i][j];
                 }
             }
         }
+
+        /**
+         * @param tour tour
+         * @return total distance of the tour
+         */
+        double length(int[] tour) {
+            double result = 0;
+            for (int lambda = 0; lambda < n; lambda++) {
+                result += distances[tour[lambda]][tour[(lambda + 1) % n]];
+            }
+            return result;
+        }
+
+        /**
+         * @return length of the nearest neighbour tour from city 0
+         */
+        private double nearestNeighbourLength() {
+            boolean[] visited = new boolean[n];
+            int[] tour = new int[n];
+            visited[0] = true;
+
+            for (int lambda = 1; lambda < n; lambda++) {
+                int i = tour[lambda - 1];
+                int j = -1;
+                for (int l = 0; l < n; l++) {
+                    if (!visited[l] && (j == -1 || distances[i][l] < distances[i][j])) {
+                        j = l;
+                    }
+                }
+                tour[lambda] = j;
+                visited[j] = true;
+            }
+
+            return length(tour);
+        }
+    }
+
+    /**
+     * Ant with tsp tour, visited cities, tour length and the
+     * roulette wheel for drawing among the candidates
+     */
+    private static final class Ant {
+        final int[] tour;
+        final boolean[] visited;
+        final double[] wheel;
+        double length;
+
+        Ant(int n, int candidates) {
+            tour = new int[n];
+            visited = new boolean[n];
+            wheel = new double[candidates];
+        }
     }
 }
@@ -0,0 +1,364 @@
+package de.uos.inf.ko.tsp.solver.student;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import de.uos.inf.ko.tsp.Instance;
+
+/**
+ * Local search for symmetric TSP instances: improves a tour with 2-opt and Or-opt moves until no
+ * improving move is left. Only moves that connect a city to one of its nearest neighbours are
+ * tried, and cities whose neighbourhood brought no improvement are skipped until one of their
+ * tour edges changes (don't-look bits). The tour is kept in an array together with the position of
+ * every city.
+ *
+ * A local search works on a fixed instance and reuses its arrays, so it must not be shared
+ * between threads.
+ *
+ * @author jtormoehlen
+ */
+public class LocalSearch {
+
+    /** default length of the neighbour lists **/
+    private static final int NEIGHBOURS = 10;
+
+    /** maximal length of a segment moved by Or-opt **/
+    private static final int SEGMENT = 3;
+
+    /** minimal gain of a move (avoids cycling on rounding errors) **/
+    private static final double EPSILON = 1e-9;
+
+    private final double[][] distances;
+    private final int[][] neighbours;
+    private final int n;
+
+    /** tour and position of every city in the tour **/
+    private int[] tour;
+    private final int[] pos;
+
+    /** cities to be examined (cities without don't-look bit) **/
+    private final int[] queue;
+    private final boolean[] queued;
+    private int head;
+    private int size;
+
+    /** buffer of the segment moved by Or-opt **/
+    private final int[] segment = new int[SEGMENT];
+
+    /**
+     * @param instance TSP instance
+     */
+    public LocalSearch(Instance instance) {
+        this(instance, NEIGHBOURS);
+    }
+
+    /**
+     * @param instance   TSP instance
+     * @param neighbours length of the neighbour lists
+     */
+    public LocalSearch(Instance instance, int neighbours) {
+        this(instance.getDistances(), neighbourLists(instance.getDistances(), neighbours));
+    }
+
+    /**
+     * @param distances  distance matrix
+     * @param neighbours nearest cities of every city, closest first
+     */
+    LocalSearch(double[][] distances, int[][] neighbours) {
+        this.distances = distances;
+        this.neighbours = neighbours;
+        this.n = distances.length;
+        this.pos = new int[n];
+        this.queue = new int[n];
+        this.queued = new boolean[n];
+    }
+
+    /**
+     * nearest cities of every city, closest first
+     *
+     * @param distances distance matrix
+     * @param k         length of the lists
+     * @return list of the k nearest cities for every city
+     */
+    static int[][] neighbourLists(double[][] distances, int k) {
+        int n = distances.length;
+        int[][] result = new int[n][];
+
+        for (int i = 0; i < n; i++) {
+            final double[] row = distances[i];
+            final int from = i;
+            result[i] = IntStream.range(0, n)
+                    .filter(j -> j != from)
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(j -> row[j]))
+                    .limit(k)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        return result;
+    }
+
+    /**
+     * improve a tour
+     *
+     * @param tour TSP tour described as a list of cities
+     * @return improved tour (a new list)
+     * @throws IllegalArgumentException if the tour does not visit every city exactly once
+     */
+    public List<Integer> improve(List<Integer> tour) {
+        int[] cities = new int[tour.size()];
+        for (int i = 0; i < cities.length; i++) {
+            cities[i] = tour.get(i);
+        }
+
+        improve(cities);
+
+        List<Integer> result = new ArrayList<>(cities.length);
+        for (int city : cities) {
+            result.add(city);
+        }
+        return result;
+    }
+
+    /**
+     * improve a tour in place
+     *
+     * @param cities tour containing every city once (modified)
+     * @throws IllegalArgumentException if the tour does not visit every city exactly once
+     */
+    void improve(int[] cities) {
+        if (cities.length != n) {
+            throw new IllegalArgumentException("tour must visit all " + n + " cities: " + cities.length);
+        }
+
+        head = 0;
+        size = 0;
+        Arrays.fill(queued, false);
+        for (int i = 0; i < n; i++) {
+            int city = cities[i];
+            if (city < 0 || city >= n || queued[city]) {
+                throw new IllegalArgumentException("tour must visit every city exactly once: " + city);
+            }
+            pos[city] = i;
+            push(city);
+        }
+        if (n < 4) {
+            return;
+        }
+
+        tour = cities;
+
+        while (size > 0) {
+            int a = queue[head];
+            head = (head + 1) % n;
+            size--;
+            queued[a] = false;
+
+            if (twoOpt(a) || orOpt(a)) {
+                /** look at the city again, its neighbourhood may hold further improvements **/
+                push(a);
+            }
+        }
+
+        tour = null;
+    }
+
+    /**
+     * try the 2-opt moves that replace a tour edge at city a by an
+     * edge from a to one of its neighbours; the first improving move
+     * is made
+     *
+     * @param a city
+     * @return true if the tour was improved
+     */
+    private boolean twoOpt(int a) {
+        for (int dir = 0; dir < 2; dir++) {
+            boolean forward = dir == 0;
+            int b = forward ? succ(a) : pred(a);
+            double ab = distances[a][b];
+
+            for (int c : neighbours[a]) {
+                double ac = distances[a][c];
+                if (!(ab - ac > EPSILON)) {
+                    break;
+                }
+
+                int d = forward ? succ(c) : pred(c);
+                double gain = ab + distances[c][d] - ac - distances[b][d];
+
+                if (gain > EPSILON) {
+                    /** a b ... c d becomes a c ... b d, b a ... d c becomes b d ... a c **/
+                    if (forward) {
+                        reverse(pos[b], pos[c]);
+                    } else {
+                        reverse(pos[a], pos[d]);
+                    }
+                    push(b);
+                    push(c);
+                    push(d);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * try the Or-opt moves that take a segment of up to three cities
+     * starting or ending at city a and insert it, possibly reversed,
+     * next to a neighbour of a; the first improving move is made
+     *
+     * @param a city
+     * @return true if the tour was improved
+     */
+    private boolean orOpt(int a) {
+        for (int length = 1; length <= SEGMENT && length + 2 < n; length++) {
+            for (int dir = 0; dir < 2; dir++) {
+                /** segment s1 ... s2 in tour order, a is s1 (dir 0) or s2 (dir 1) **/
+                int first = dir == 0 ? pos[a] : (pos[a] - length + 1 + n) % n;
+                int s1 = tour[first];
+                int s2 = tour[(first + length - 1) % n];
+                int p = pred(s1);
+                int nx = succ(s2);
+                double removed = distances[p][s1] + distances[s2][nx] - distances[p][nx];
+
+                for (int c : neighbours[a]) {
+                    double ac = distances[a][c];
+                    if (!(removed - ac > EPSILON)) {
+                        break;
+                    }
+                    if (inSegment(c, first, length)) {
+                        continue;
+                    }
+
+                    /** insert between c and succ(c) with a next to c, or between pred(c) and c **/
+                    for (int side = 0; side < 2; side++) {
+                        int left = side == 0 ? c : pred(c);
+                        int right = side == 0 ? succ(c) : c;
+                        if (inSegment(left, first, length) || inSegment(right, first, length)) {
+                            continue;
+                        }
+
+                        /** a is next to c: x is next to left, y next to right **/
+                        int x = side == 0 ? a : (a == s1 ? s2 : s1);
+                        int y = x == s1 ? s2 : s1;
+                        double gain = removed + distances[left][right] - distances[left][x] - distances[y][right];
+
+                        if (gain > EPSILON) {
+                            move(first, length, left, x != s1);
+                            push(p);
+                            push(nx);
+                            push(s1);
+                            push(s2);
+                            push(left);
+                            push(right);
+                            return true;
+                        }
+                    }
+                }
+
+                if (length == 1) {
+                    /** a segment of a single city has no second orientation **/
+                    break;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * move the segment at positions first, ..., first + length - 1
+     * behind city c by shifting the cities between them
+     *
+     * @param first    position of the first city of the segment
+     * @param length   number of cities in the segment
+     * @param c        city outside the segment
+     * @param reversed insert the segment in reverse order
+     */
+    private void move(int first, int length, int c, boolean reversed) {
+        for (int s = 0; s < length; s++) {
+            segment[reversed ? length - 1 - s : s] = tour[(first + s) % n];
+        }
+
+        /** g cities from the successor of the segment up to c, the other h cities on the other side **/
+        int g = (pos[c] - (first + length - 1) + n) % n;
+        int h = n - length - g;
+        int start;
+
+        if (g <= h) {
+            for (int s = 0; s < g; s++) {
+                place(tour[(first + length + s) % n], (first + s) % n);
+            }
+            start = (first + g) % n;
+        } else {
+            for (int s = 1; s <= h; s++) {
+                place(tour[(first - s + n) % n], (first + length - s + n) % n);
+            }
+            start = (first - h + n) % n;
+        }
+
+        for (int s = 0; s < length; s++) {
+            place(segment[s], (start + s) % n);
+        }
+    }
+
+    /**
+     * reverse the path at positions i, ..., j (in tour order); the
+     * complement is reversed instead if it is shorter, which gives the
+     * same cycle
+     *
+     * @param i position of the first city of the path
+     * @param j position of the last city of the path
+     */
+    private void reverse(int i, int j) {
+        int length = (j - i + n) % n + 1;
+        if (2 * length > n) {
+            int k = i;
+            i = (j + 1) % n;
+            j = (k - 1 + n) % n;
+            length = n - length;
+        }
+
+        for (int s = 0; s < length / 2; s++) {
+            int left = tour[i];
+            int right = tour[j];
+            place(right, i);
+            place(left, j);
+            i = (i + 1) % n;
+            j = (j - 1 + n) % n;
+        }
+    }
+
+    private void place(int city, int position) {
+        tour[position] = city;
+        pos[city] = position;
+    }
+
+    private boolean inSegment(int city, int first, int length) {
+        return (pos[city] - first + n) % n < length;
+    }
+
+    private int succ(int city) {
+        return tour[(pos[city] + 1) % n];
+    }
+
+    private int pred(int city) {
+        return tour[(pos[city] - 1 + n) % n];
+    }
+
+    /**
+     * clear the don't-look bit of a city
+     *
+     * @param city city
+     */
+    private void push(int city) {
+        if (!queued[city]) {
+            queued[city] = true;
+            queue[(head + size) % n] = city;
+            size++;
+        }
+    }
+}
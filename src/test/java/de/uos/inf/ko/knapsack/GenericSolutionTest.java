@@ -0,0 +1,84 @@
+package de.uos.inf.ko.knapsack;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class GenericSolutionTest {
+
+  private static Instance createInstance() {
+    Instance instance = new Instance(3);
+    instance.set(0, 4, 5);
+    instance.set(1, 1, 3);
+    instance.set(2, 2, 4);
+    instance.setCapacity(10);
+    return instance;
+  }
+
+  @Test
+  public void testCopyConstructor() {
+    Instance instance = createInstance();
+    Solution solution = new Solution(instance, new int[] {1, 0, 1});
+
+    Solution copy = new Solution(solution);
+    assertEquals(solution.toString(), copy.toString());
+    assertEquals(solution.getValue(), copy.getValue());
+    assertEquals(solution.getWeight(), copy.getWeight());
+
+    copy.flip(1);
+    assertEquals("the copy must not share the quantities", Integer.valueOf(0), solution.get(1));
+  }
+
+  @Test
+  public void testFractionalCopyConstructor() {
+    Instance instance = createInstance();
+    FractionalSolution solution = new FractionalSolution(instance);
+    solution.set(0, 1.0);
+    solution.set(2, 0.5);
+
+    FractionalSolution copy = new FractionalSolution(solution);
+    assertEquals(solution.toString(), copy.toString());
+    assertEquals(solution.getValue(), copy.getValue(), 1e-9);
+    assertEquals(solution.getWeight(), copy.getWeight(), 1e-9);
+
+    copy.set(1, 1.0);
+    assertEquals("the copy must not share the quantities", 0.0, solution.get(1), 1e-9);
+  }
+
+  @Test
+  public void testGenericCopyConstructor() {
+    Instance instance = createInstance();
+    FractionalSolution solution = new FractionalSolution(instance);
+    solution.set(0, 1.0);
+    solution.set(2, 0.5);
+
+    /** subclass as written against the boxed fields of GenericSolution **/
+    GenericSolution<Double> copy = new GenericSolution<Double>(solution) {
+      @Override
+      public void set(int item, Double quantity) {
+        solValue += (quantity - sol.get(item)) * instance.getValue(item);
+        solWeight += (quantity - sol.get(item)) * instance.getWeight(item);
+        sol.set(item, quantity);
+      }
+
+      @Override
+      public boolean isFeasible() {
+        return getWeight() <= instance.getCapacity();
+      }
+
+      @Override
+      public boolean isBinary() {
+        return false;
+      }
+
+      @Override
+      protected Double zero() {
+        return 0.0;
+      }
+    };
+
+    assertEquals(solution.toString(), copy.toString());
+    assertEquals(solution.getValue(), copy.getValue(), 1e-9);
+    assertEquals(solution.getWeight(), copy.getWeight(), 1e-9);
+  }
+
+}
@@ -0,0 +1,67 @@
+package de.uos.inf.ko.knapsack;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class InstanceTest {
+
+  private static Instance createInstance() {
+    Instance instance = new Instance(3);
+    instance.set(0, 4, 4);
+    instance.set(1, 6, 2);
+    instance.set(2, 6, 3);
+    instance.setCapacity(5);
+    return instance;
+  }
+
+  @Test
+  public void testOrderIsCached() {
+    Instance instance = createInstance();
+    int[] order = instance.getEfficiencyOrder();
+
+    assertArrayEquals(new int[] {1, 2, 0}, order);
+    assertSame(order, instance.getEfficiencyOrder());
+  }
+
+  @Test
+  public void testSetCapacityKeepsOrder() {
+    Instance instance = createInstance();
+    int[] order = instance.getEfficiencyOrder();
+
+    instance.setCapacity(1);
+    assertSame("the order does not depend on the capacity", order, instance.getEfficiencyOrder());
+  }
+
+  @Test
+  public void testSetValueClearsOrder() {
+    Instance instance = createInstance();
+    int[] order = instance.getEfficiencyOrder();
+
+    instance.setValue(0, 10);
+    assertNotSame(order, instance.getEfficiencyOrder());
+    assertArrayEquals(new int[] {1, 0, 2}, instance.getEfficiencyOrder());
+  }
+
+  @Test
+  public void testSetWeightClearsOrder() {
+    Instance instance = createInstance();
+    int[] order = instance.getEfficiencyOrder();
+
+    instance.setWeight(1, 6);
+    assertNotSame(order, instance.getEfficiencyOrder());
+    assertArrayEquals(new int[] {2, 0, 1}, instance.getEfficiencyOrder());
+  }
+
+  @Test
+  public void testSetClearsOrder() {
+    Instance instance = createInstance();
+    int[] order = instance.getEfficiencyOrder();
+
+    instance.set(2, 1, 0);
+    assertNotSame(order, instance.getEfficiencyOrder());
+    assertArrayEquals(new int[] {2, 1, 0}, instance.getEfficiencyOrder());
+  }
+
+}
@@ -0,0 +1,86 @@
+package de.uos.inf.ko.knapsack;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class SortedInstanceTest {
+
+  private static Instance createInstance(int capacity, int[][] items) {
+    Instance instance = new Instance(items.length);
+    for (int i = 0; i < items.length; ++i) {
+      instance.set(i, items[i][0], items[i][1]);
+    }
+    instance.setCapacity(capacity);
+    return instance;
+  }
+
+  @Test
+  public void testZeroCapacity() {
+    SortedInstance sorted = new SortedInstance(createInstance(0, new int[][] {{4, 2}, {3, 3}}));
+
+    assertEquals(0, sorted.getBreakLevel());
+    assertEquals(0, sorted.getCriticalLevel(0, 0));
+    assertEquals(0, sorted.getUpperBound(0, 0));
+    assertEquals(0.0, sorted.getFractionalBound(0, 0), 1e-9);
+  }
+
+  @Test
+  public void testWeightlessItems() {
+    SortedInstance sorted =
+        new SortedInstance(createInstance(0, new int[][] {{10, 5}, {5, 4}, {3, 0}, {5, 0}}));
+
+    /** weightless items come first, by decreasing value **/
+    assertEquals(3, sorted.getItem(0));
+    assertEquals(2, sorted.getItem(1));
+    assertEquals(0, sorted.getItem(2));
+    assertEquals(1, sorted.getItem(3));
+
+    /** weightless items always fit, even without capacity **/
+    assertEquals(2, sorted.getBreakLevel());
+    assertEquals(8, sorted.getUpperBound(0, 0));
+    assertEquals(8.0, sorted.getFractionalBound(0, 0), 1e-9);
+
+    /** 5 + 3 + 10 + 2/4 * 5 **/
+    assertEquals(3, sorted.getCriticalLevel(0, 7));
+    assertEquals(20, sorted.getUpperBound(0, 7));
+    assertEquals(20.5, sorted.getFractionalBound(0, 7), 1e-9);
+  }
+
+  @Test
+  public void testAllItemsFit() {
+    SortedInstance sorted = new SortedInstance(createInstance(20, new int[][] {{6, 2}, {2, 3}, {4, 2}}));
+
+    assertEquals(3, sorted.getBreakLevel());
+    assertEquals(12, sorted.getUpperBound(0, 20));
+    assertEquals(12.0, sorted.getFractionalBound(0, 20), 1e-9);
+
+    /** exactly the total weight **/
+    assertEquals(3, sorted.getCriticalLevel(0, 7));
+    assertEquals(12, sorted.getUpperBound(0, 7));
+
+    /** from an inner level **/
+    assertEquals(3, sorted.getCriticalLevel(1, 5));
+    assertEquals(6, sorted.getUpperBound(1, 5));
+  }
+
+  @Test
+  public void testCriticalItemOnLastLevel() {
+    SortedInstance sorted = new SortedInstance(createInstance(6, new int[][] {{6, 2}, {2, 3}, {4, 2}}));
+
+    /** 6 + 4 + 2/3 * 2 **/
+    assertEquals(2, sorted.getBreakLevel());
+    assertEquals(11, sorted.getUpperBound(0, 6));
+    assertEquals(10 + 4.0 / 3, sorted.getFractionalBound(0, 6), 1e-9);
+
+    /** 4 + 0/3 * 2 **/
+    assertEquals(2, sorted.getCriticalLevel(1, 2));
+    assertEquals(4, sorted.getUpperBound(1, 2));
+    assertEquals(4.0, sorted.getFractionalBound(1, 2), 1e-9);
+
+    /** only the last level left **/
+    assertEquals(2, sorted.getCriticalLevel(2, 2));
+    assertEquals(1, sorted.getUpperBound(2, 2));
+    assertEquals(4.0 / 3, sorted.getFractionalBound(2, 2), 1e-9);
+  }
+
+}
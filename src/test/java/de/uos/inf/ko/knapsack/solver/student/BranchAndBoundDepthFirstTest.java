@@ -0,0 +1,9 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Solution;
+
+public class BranchAndBoundDepthFirstTest extends GenericExactSolverTest<Solution> {
+  public BranchAndBoundDepthFirstTest() {
+    super(new BranchAndBound(BranchAndBound.Strategy.DEPTH_FIRST));
+  }
+}
@@ -0,0 +1,10 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Solution;
+
+public class DynamicProgrammingTest extends GenericExactSolverTest<Solution> {
+
+  public DynamicProgrammingTest() {
+    super(new DynamicProgramming());
+  }
+}
@@ -0,0 +1,10 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Solution;
+
+public class ExpandingCoreTest extends GenericExactSolverTest<Solution> {
+
+  public ExpandingCoreTest() {
+    super(new ExpandingCore());
+  }
+}
@@ -0,0 +1,10 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.FractionalSolution;
+
+public class FractionalSolverSelectionTest extends GenericExactFractionalSolverTest<FractionalSolution> {
+
+  public FractionalSolverSelectionTest() {
+    super(new FractionalSolver(FractionalSolver.Strategy.SELECTION));
+  }
+}
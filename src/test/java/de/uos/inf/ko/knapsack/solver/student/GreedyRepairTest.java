@@ -0,0 +1,159 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.SortedInstance;
+
+public class GreedyRepairTest {
+
+  private static final int ROUNDS = 200;
+
+  /**
+   * Random instance with up to 150 items (more than two words of a bitset), some of them
+   * weightless, and a capacity between zero and the total weight
+   */
+  private static SortedInstance createInstance(Random random) {
+    int n = 1 + random.nextInt(150);
+    Instance instance = new Instance(n);
+    int total = 0;
+    for (int i = 0; i < n; ++i) {
+      int weight = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(100);
+      instance.set(i, random.nextInt(100), weight);
+      total += weight;
+    }
+    instance.setCapacity(random.nextInt(total + 1));
+    return new SortedInstance(instance);
+  }
+
+  /**
+   * solution in level order, either arbitrary or feasible
+   */
+  private static boolean[] createSolution(SortedInstance sorted, Random random, boolean feasible) {
+    boolean[] x = new boolean[sorted.getSize()];
+    long weight = 0;
+    for (int j = 0; j < x.length; ++j) {
+      if (random.nextBoolean() && (!feasible || weight + sorted.getWeight(j) <= sorted.getCapacity())) {
+        x[j] = true;
+        weight += sorted.getWeight(j);
+      }
+    }
+    return x;
+  }
+
+  private static long value(SortedInstance sorted, boolean[] x) {
+    long value = 0;
+    for (int j = 0; j < x.length; ++j) {
+      value += x[j] ? sorted.getValue(j) : 0;
+    }
+    return value;
+  }
+
+  private static long weight(SortedInstance sorted, boolean[] x) {
+    long weight = 0;
+    for (int j = 0; j < x.length; ++j) {
+      weight += x[j] ? sorted.getWeight(j) : 0;
+    }
+    return weight;
+  }
+
+  private static long[] toBitset(boolean[] x) {
+    long[] bits = new long[(x.length + 63) >>> 6];
+    for (int j = 0; j < x.length; ++j) {
+      if (x[j]) {
+        bits[j >>> 6] |= 1L << j;
+      }
+    }
+    return bits;
+  }
+
+  private static boolean[] fromBitset(long[] bits, int n) {
+    boolean[] x = new boolean[n];
+    for (int j = 0; j < n; ++j) {
+      x[j] = (bits[j >>> 6] & (1L << j)) != 0;
+    }
+    return x;
+  }
+
+  private static int[] toItems(SortedInstance sorted, boolean[] x) {
+    int[] quantities = new int[x.length];
+    for (int j = 0; j < x.length; ++j) {
+      quantities[sorted.getItem(j)] = x[j] ? 1 : 0;
+    }
+    return quantities;
+  }
+
+  private static boolean[] fromItems(SortedInstance sorted, int[] quantities) {
+    boolean[] x = new boolean[quantities.length];
+    for (int j = 0; j < x.length; ++j) {
+      x[j] = quantities[sorted.getItem(j)] == 1;
+    }
+    return x;
+  }
+
+  /**
+   * repair a solution in all three representations; all of them must give the same result
+   */
+  private static boolean[] repair(SortedInstance sorted, boolean[] x) {
+    GreedyRepair repair = new GreedyRepair(sorted);
+
+    boolean[] levels = x.clone();
+    repair.repair(levels);
+    assertEquals(value(sorted, levels), repair.getValue());
+    assertEquals(weight(sorted, levels), repair.getWeight());
+
+    long[] bits = toBitset(x);
+    repair.repair(bits);
+    assertEquals(Arrays.toString(levels), Arrays.toString(fromBitset(bits, x.length)));
+    assertEquals(value(sorted, levels), repair.getValue());
+
+    int[] quantities = toItems(sorted, x);
+    repair.repair(quantities);
+    assertEquals(Arrays.toString(levels), Arrays.toString(fromItems(sorted, quantities)));
+    assertEquals(value(sorted, levels), repair.getValue());
+
+    return levels;
+  }
+
+  private static void assertMaximal(SortedInstance sorted, boolean[] x) {
+    long residual = sorted.getCapacity() - weight(sorted, x);
+    for (int j = 0; j < x.length; ++j) {
+      assertFalse("no further item may fit", !x[j] && sorted.getWeight(j) <= residual);
+    }
+  }
+
+  @Test
+  public void testRepairedSolutionIsFeasible() {
+    Random random = new Random(42);
+
+    for (int round = 0; round < ROUNDS; ++round) {
+      SortedInstance sorted = createInstance(random);
+      boolean[] x = repair(sorted, createSolution(sorted, random, false));
+
+      assertTrue("repaired solution must be feasible", weight(sorted, x) <= sorted.getCapacity());
+      assertMaximal(sorted, x);
+    }
+  }
+
+  @Test
+  public void testFillingKeepsFeasibleSolution() {
+    Random random = new Random(43);
+
+    for (int round = 0; round < ROUNDS; ++round) {
+      SortedInstance sorted = createInstance(random);
+      boolean[] start = createSolution(sorted, random, true);
+      boolean[] x = repair(sorted, start);
+
+      assertTrue("filling must not lower the value", value(sorted, x) >= value(sorted, start));
+      for (int j = 0; j < x.length; ++j) {
+        assertTrue("a feasible solution keeps all its items", !start[j] || x[j]);
+      }
+      assertMaximal(sorted, x);
+    }
+  }
+
+}
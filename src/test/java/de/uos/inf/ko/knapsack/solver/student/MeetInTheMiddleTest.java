@@ -0,0 +1,10 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Solution;
+
+public class MeetInTheMiddleTest extends GenericExactSolverTest<Solution> {
+
+  public MeetInTheMiddleTest() {
+    super(new MeetInTheMiddle());
+  }
+}
@@ -0,0 +1,9 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import de.uos.inf.ko.knapsack.Solution;
+
+public class ParallelBranchAndBoundTest extends GenericExactSolverTest<Solution> {
+  public ParallelBranchAndBoundTest() {
+    super(new ParallelBranchAndBound(4));
+  }
+}
@@ -0,0 +1,125 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.reader.Reader;
+import org.junit.Test;
+
+public class ParallelRunTest {
+
+  private static final RuntimeException FAILURE = new IllegalArgumentException("failure");
+
+  /**
+   * run in which worker 0 fails in its third round (or the barrier action in the third round),
+   * the other workers run until they are stopped
+   */
+  private static final class FailingRun extends ParallelRun {
+    final boolean failInAction;
+    final AtomicInteger rounds = new AtomicInteger();
+
+    FailingRun(int workers, boolean synchronous, boolean failInAction) {
+      super(workers, synchronous);
+      this.failInAction = failInAction;
+    }
+
+    @Override
+    void work(int i) throws InterruptedException, BrokenBarrierException {
+      for (int round = 1; !stop; ++round) {
+        if (i == 0 && round == 3 && !failInAction) {
+          throw FAILURE;
+        }
+        Thread.sleep(i == 1 ? 5 : 1);
+        if (barrier != null) {
+          barrier.await();
+        }
+      }
+    }
+
+    @Override
+    void synchronize() {
+      if (rounds.incrementAndGet() == 3 && failInAction) {
+        throw FAILURE;
+      }
+    }
+  }
+
+  private static void assertFailure(ParallelRun run) {
+    try {
+      run.run();
+      fail("the failure of a worker must be rethrown");
+    } catch (RuntimeException e) {
+      assertSame(FAILURE, e);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testFailingWorkerSynchronous() {
+    assertFailure(new FailingRun(3, true, false));
+  }
+
+  @Test(timeout = 10000)
+  public void testFailingWorkerAsynchronous() {
+    assertFailure(new FailingRun(3, false, false));
+  }
+
+  @Test(timeout = 10000)
+  public void testFailingBarrierAction() {
+    assertFailure(new FailingRun(3, true, true));
+  }
+
+  @Test(timeout = 10000)
+  public void testStop() {
+    ParallelRun run = new ParallelRun(3, true) {
+      final AtomicInteger rounds = new AtomicInteger();
+
+      @Override
+      void work(int i) throws InterruptedException, BrokenBarrierException {
+        while (!stop) {
+          barrier.await();
+        }
+      }
+
+      @Override
+      void synchronize() {
+        stop = rounds.incrementAndGet() == 5;
+      }
+    };
+    run.run();
+    assertEquals(true, run.stop);
+  }
+
+  /**
+   * a failing cooling schedule must not leave the other chains waiting at the barrier
+   */
+  @Test(timeout = 20000)
+  public void testFailingCoolingSchedule() throws IOException {
+    Instance instance = Reader.readInstance(GenericSolverTest.KNAPSACK_INSTANCES_PATH + "rucksack01000-1.txt");
+
+    for (boolean bounded : new boolean[] {false, true}) {
+      AtomicInteger calls = new AtomicInteger();
+      CoolingSchedule schedule = (hot, cold, t, progress, stagnation) -> {
+        if (calls.incrementAndGet() == 3) {
+          throw FAILURE;
+        }
+        return hot;
+      };
+      SimulatedAnnealing solver = new SimulatedAnnealing(SimulatedAnnealing.Mode.MULTI_START, 2, 500, schedule);
+      if (bounded) {
+        solver.setMaxIterations(1 << 20);
+      }
+
+      try {
+        solver.solve(instance);
+        fail("the failure of the cooling schedule must be rethrown");
+      } catch (RuntimeException e) {
+        assertSame(FAILURE, e);
+      }
+    }
+  }
+}
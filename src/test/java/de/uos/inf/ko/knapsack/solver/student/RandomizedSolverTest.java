@@ -0,0 +1,63 @@
+package de.uos.inf.ko.knapsack.solver.student;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import de.uos.inf.ko.knapsack.Instance;
+import de.uos.inf.ko.knapsack.Solution;
+import de.uos.inf.ko.knapsack.reader.Reader;
+import org.junit.Test;
+
+public class RandomizedSolverTest {
+
+  private static final List<String> FILENAMES = Arrays.asList("rucksack01000-1.txt", "rucksack10000-3.txt");
+
+  /**
+   * budget in milliseconds that is large enough for every run to end by its iteration bound
+   */
+  private static final long BUDGET = 60000;
+
+  private static void assertReproducible(Supplier<RandomizedSolver> factory, long iterations) throws IOException {
+    for (String filename : FILENAMES) {
+      Instance instance = Reader.readInstance(GenericSolverTest.KNAPSACK_INSTANCES_PATH + filename);
+      RandomizedSolver first = factory.get();
+      RandomizedSolver second = factory.get();
+      first.setSeed(42);
+      second.setSeed(42);
+      first.setMaxIterations(iterations);
+      second.setMaxIterations(iterations);
+
+      Solution expected = first.solve(instance);
+      Solution actual = second.solve(instance);
+      assertTrue(expected.isFeasible());
+      assertEquals("same seed and configuration must give the same value", expected.getValue(), actual.getValue());
+      assertArrayEquals("same seed and configuration must give the same solution", expected.getIntegerArray(),
+          actual.getIntegerArray());
+    }
+  }
+
+  @Test
+  public void testGeneticAlgorithm() throws IOException {
+    assertReproducible(() -> new GeneticAlgorithm(1, BUDGET), 2000);
+    assertReproducible(() -> new GeneticAlgorithm(3, BUDGET), 2000);
+  }
+
+  @Test
+  public void testSimulatedAnnealing() throws IOException {
+    assertReproducible(() -> new SimulatedAnnealing(SimulatedAnnealing.Mode.MULTI_START, 1, BUDGET), 50000);
+    assertReproducible(() -> new SimulatedAnnealing(SimulatedAnnealing.Mode.MULTI_START, 3, BUDGET), 50000);
+    assertReproducible(() -> new SimulatedAnnealing(SimulatedAnnealing.Mode.PARALLEL_TEMPERING, 3, BUDGET), 50000);
+  }
+
+  @Test
+  public void testTabuSearch() throws IOException {
+    assertReproducible(() -> new TabuSearch(1, BUDGET), 20000);
+    assertReproducible(() -> new TabuSearch(3, BUDGET), 20000);
+  }
+
+}
@@ -1,10 +1,51 @@
 package de.uos.inf.ko.knapsack.solver.student;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import de.uos.inf.ko.knapsack.Instance;
 import de.uos.inf.ko.knapsack.Solution;
+import de.uos.inf.ko.knapsack.reader.Reader;
+import org.junit.Test;
 
 public class TabuSearchTest extends GenericExactSolverTest<Solution> {
 
   public TabuSearchTest() {
     super(new TabuSearch());
   }
+
+  @Test
+  public void testTenureIsBounded() {
+    for (int candidates : new int[] {1, 7, 40, TabuSearch.DEFAULT_CANDIDATES}) {
+      for (int i = 0; i < 64; ++i) {
+        int tenure = TabuSearch.tenure(i, candidates);
+        assertTrue(tenure >= 1);
+        assertTrue("at most a quarter of the candidates may be tabu", tenure <= Math.max(candidates / 4, 1));
+      }
+    }
+
+    /** 5, 10, 20, 40 for every pair of walks, then again from the start **/
+    int[] expected = {5, 5, 10, 10, 20, 20, 40, 40, 5, 5};
+    for (int i = 0; i < expected.length; ++i) {
+      assertEquals(expected[i], TabuSearch.tenure(i, TabuSearch.DEFAULT_CANDIDATES));
+    }
+  }
+
+  @Test
+  public void testSolutionIsMaximal() throws IOException {
+    Instance instance = Reader.readInstance(KNAPSACK_INSTANCES_PATH + "rucksack05000-1.txt");
+
+    for (int seed = 0; seed < 5; ++seed) {
+      TabuSearch solver = new TabuSearch(2, 100);
+      solver.setSeed(seed);
+      Solution solution = solver.solve(instance);
+      assertTrue(solution.isFeasible());
+
+      long residual = instance.getCapacity() - solution.getWeight();
+      for (int i = 0; i < instance.getSize(); ++i) {
+        assertFalse("no further item may fit", solution.get(i) == 0 && instance.getWeight(i) <= residual);
+      }
+    }
+  }
 }
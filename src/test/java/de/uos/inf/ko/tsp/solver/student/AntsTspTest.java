@@ -6,6 +6,7 @@ import static org.junit.Assume.assumeTrue;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import de.uos.inf.ko.tsp.Instance;
 import org.junit.BeforeClass;
@@ -39,6 +40,65 @@ public class AntsTspTest {
     }
   }
 
+  @Test
+  public void testAllInstancesMaxMin() throws IOException {
+
+    for (String filename : FILENAMES) {
+      Instance instance = Reader.readInstance("./resources/tsp/" + filename);
+      Ants ants = new Ants(Ants.PheromoneUpdate.MAX_MIN);
+      final List<Integer> tour = ants.solve(instance);
+      assertFeasibility(instance, tour);
+    }
+  }
+
+  @Test
+  public void testReproducibleWithSeed() throws IOException {
+
+    for (String filename : FILENAMES) {
+      Instance instance = Reader.readInstance("./resources/tsp/" + filename);
+      Ants first = new Ants(Ants.PheromoneUpdate.MAX_MIN, 3);
+      Ants second = new Ants(Ants.PheromoneUpdate.MAX_MIN, 3);
+      first.setSeed(42);
+      second.setSeed(42);
+      assertEquals("same seed and thread count must give the same tour", first.solve(instance),
+          second.solve(instance));
+    }
+  }
+
+  @Test
+  public void testDuplicatePoints() {
+    Instance instance = createInstance(new Random(7), 24);
+
+    for (double q0 : new double[] {0, 0.9, 1}) {
+      for (int seed = 0; seed < 5; seed++) {
+        Ants ants = new Ants(Ants.PheromoneUpdate.MAX_MIN, 2);
+        ants.setSeed(seed);
+        ants.setExploitation(q0);
+        assertFeasibility(instance, ants.solve(instance));
+      }
+    }
+  }
+
+  /**
+   * Euclidean instance with n random points in the unit square, every point placed twice
+   */
+  private static Instance createInstance(Random random, int n) {
+    double[] x = new double[n];
+    double[] y = new double[n];
+    for (int i = 0; i < n; i += 2) {
+      x[i] = x[i + 1] = random.nextDouble();
+      y[i] = y[i + 1] = random.nextDouble();
+    }
+
+    Instance instance = new Instance(n);
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        instance.setDistance(i, j, Math.hypot(x[i] - x[j], y[i] - y[j]));
+      }
+    }
+    return instance;
+  }
+
   private static void assertFeasibility(Instance instance, List<Integer> tour) {
     final int n = instance.getNumCities();
     final boolean[] visited = new boolean[n];
@@ -0,0 +1,120 @@
+package de.uos.inf.ko.tsp.solver.student;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import de.uos.inf.ko.tsp.Instance;
+import org.junit.Test;
+import de.uos.inf.ko.tsp.reader.Reader;
+
+public class LocalSearchTest {
+
+  private static final List<String> FILENAMES = Arrays.asList("tsp1.txt", "tsp2.txt", "tsp3.txt");
+
+  @Test
+  public void testAllInstances() throws IOException {
+
+    for (String filename : FILENAMES) {
+      Instance instance = Reader.readInstance("./resources/tsp/" + filename);
+      List<Integer> start = new ArrayList<>();
+      for (int city = 0; city < instance.getNumCities(); city++) {
+        start.add(city);
+      }
+      Collections.shuffle(start, new Random(42));
+
+      final List<Integer> tour = new LocalSearch(instance).improve(start);
+      assertFeasibility(instance, tour);
+      assertTrue("local search must not lengthen the tour",
+          computeCost(instance, tour) <= computeCost(instance, start) + 1e-9);
+    }
+  }
+
+  @Test
+  public void testAntsWithLocalSearch() throws IOException {
+
+    for (String filename : FILENAMES) {
+      Instance instance = Reader.readInstance("./resources/tsp/" + filename);
+      Ants ants = new Ants(Ants.PheromoneUpdate.MAX_MIN);
+      ants.setLocalSearch(true);
+      final List<Integer> tour = ants.solve(instance);
+      assertFeasibility(instance, tour);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRepeatedCity() {
+    Instance instance = createInstance(new Random(42), 12);
+    new LocalSearch(instance).improve(Arrays.asList(3, 7, 10, 0, 4, 1, 11, 0, 9, 8, 5, 2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownCity() {
+    Instance instance = createInstance(new Random(42), 5);
+    new LocalSearch(instance).improve(Arrays.asList(0, 1, 2, 3, 5));
+  }
+
+  @Test
+  public void testReusableAfterRejectedTour() {
+    Instance instance = createInstance(new Random(42), 12);
+    LocalSearch search = new LocalSearch(instance);
+    try {
+      search.improve(Arrays.asList(3, 7, 10, 0, 4, 1, 11, 0, 9, 8, 5, 2));
+    } catch (IllegalArgumentException ex) {
+    }
+
+    List<Integer> start = Arrays.asList(3, 7, 10, 6, 4, 1, 11, 0, 9, 8, 5, 2);
+    final List<Integer> tour = search.improve(start);
+    assertFeasibility(instance, tour);
+    assertTrue(computeCost(instance, tour) <= computeCost(instance, start) + 1e-9);
+  }
+
+  /**
+   * Euclidean instance with n random points in the unit square
+   */
+  private static Instance createInstance(Random random, int n) {
+    double[] x = new double[n];
+    double[] y = new double[n];
+    for (int i = 0; i < n; i++) {
+      x[i] = random.nextDouble();
+      y[i] = random.nextDouble();
+    }
+
+    Instance instance = new Instance(n);
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        instance.setDistance(i, j, Math.hypot(x[i] - x[j], y[i] - y[j]));
+      }
+    }
+    return instance;
+  }
+
+  private static double computeCost(Instance instance, List<Integer> tour) {
+    double result = 0;
+
+    for (int i = 0; i < tour.size(); i++) {
+      result += instance.getDistance(tour.get(i), tour.get((i + 1) % tour.size()));
+    }
+
+    return result;
+  }
+
+  private static void assertFeasibility(Instance instance, List<Integer> tour) {
+    final int n = instance.getNumCities();
+    final boolean[] visited = new boolean[n];
+
+    assertEquals("every city needs to be visited exactly once", n, tour.size());
+
+    for (final Integer city : tour) {
+      assertFalse("every city must be visited only once", visited[city]);
+      visited[city] = true;
+    }
+  }
+
+}